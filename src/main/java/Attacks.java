@@ -0,0 +1,217 @@
+package src.main.java;
+
+/**
+ * Precomputed attack tables.
+ * Sliding pieces use magic bitboards: the relevant blockers of a square are multiplied
+ * by a magic number so that the top bits index a table holding the attack set for that
+ * occupancy, so a rook or bishop lookup is one multiply, one shift and one load.
+ * The magic numbers were found offline by random trial (searching them at startup takes
+ * seconds), only the tables are filled when the class is loaded.
+ */
+public final class Attacks {
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] ROOK_TABLE = new long[64][];
+    private static final long[][] BISHOP_TABLE = new long[64][];
+
+    // Leaper masks, only on-board squares
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64]; // [color][square]
+
+    // Squares strictly between two aligned squares, and the whole line through them (0 if not aligned)
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    private static final long[] ROOK_MAGICS = {
+            0x1080002080400010L, 0x54C0004290006004L, 0x0A00084020801200L, 0x0200100408220040L,
+            0xC080040002800801L, 0x0300040028010082L, 0x8880010002004080L, 0x4100002480410012L,
+            0x0004800028804001L, 0x0000400020100041L, 0x0010802000100083L, 0x8182002200084010L,
+            0x8005000802110004L, 0x2260808002000400L, 0x0118800100020080L, 0x0002000401248052L,
+            0x0109010020488000L, 0x8001050040008020L, 0x0060014030080040L, 0x0C08008008100480L,
+            0x0002020020041008L, 0x8100818014000200L, 0x0000040012180150L, 0x28800A0002841143L,
+            0x8C00400080008032L, 0x0100200040005004L, 0x0000100080802000L, 0x12D0000900210010L,
+            0x1100080080800400L, 0x0C2A000A00103C08L, 0x0080D00400020128L, 0x8029000100108052L,
+            0xA04000408080002CL, 0x0042400082802010L, 0x0400801000802004L, 0x0081800802801000L,
+            0x0010800402800801L, 0x400C020080800400L, 0x0000080204000110L, 0x210105204200019CL,
+            0x0000400080208008L, 0x8200400083050024L, 0x2180804012020023L, 0x0108090010010020L,
+            0x0008000402004040L, 0x0001000400030008L, 0x0001080210040001L, 0x00050102A8460004L,
+            0x0840400080083080L, 0x1000E00840100540L, 0x08A300B020004300L, 0x2334080080100080L,
+            0x0000080004008080L, 0x8113000802040100L, 0x0000800100020080L, 0x9000010054009200L,
+            0x1800810015E20042L, 0x4000201900400081L, 0x0005082000114101L, 0x04042100D0000409L,
+            0x0002001085200802L, 0x8301000802040001L, 0x4024021000A14804L, 0x0080084080210406L
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0x8040290602004108L, 0x2020C42092004006L, 0x0004442400480000L, 0x00580A1220815000L,
+            0x0004030811080800L, 0x000202100420000CL, 0x0021881808240000L, 0x2802004914012000L,
+            0x000020E002020844L, 0x8A20020252021E00L, 0x08220800B4008815L, 0x04060404008E1842L,
+            0x9800440422020202L, 0x0000110442400001L, 0x080104023824040CL, 0x8400020201610804L,
+            0x4004602048104108L, 0x001000040408404DL, 0x0028808408021100L, 0x120800040A404880L,
+            0x4808200402082002L, 0x0001800101600600L, 0x200100008C01A004L, 0x8178200049141004L,
+            0x4111040210208212L, 0x4830B00004044082L, 0x1800300048004140L, 0x200108005C004190L,
+            0x0050040003802100L, 0x0008088021300402L, 0x0218020415014140L, 0x0254050400844108L,
+            0x1411900800405840L, 0x02A1102A80888829L, 0x4601280801040422L, 0x00062008001101D0L,
+            0x0808010040100802L, 0x0C10004201404100L, 0x80084109250C0081L, 0x0100820848420100L,
+            0x00C0841108084002L, 0x0800480208041004L, 0x0024A0140A009001L, 0x8040034208008080L,
+            0x0040400109088200L, 0x1040149080808104L, 0x0060548492003080L, 0x0208280508400022L,
+            0x00C0820820848200L, 0x9010840108822040L, 0x8010402402482000L, 0x101214A020881080L,
+            0x051002D0E0220202L, 0x0000102001610001L, 0x2010A00810808008L, 0xA002080141020002L,
+            0x6020138088201040L, 0x0000A10082100200L, 0x0010000104010400L, 0x0020000020411084L,
+            0x0200080820204110L, 0x0002441011302320L, 0x0100100408080050L, 0x1010B00080848A00L
+    };
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            initMagic(square, ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_TABLE);
+            initMagic(square, BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_TABLE);
+            KNIGHT_ATTACKS[square] = leaperAttacks(square, new int[][]{
+                    {2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}});
+            KING_ATTACKS[square] = leaperAttacks(square, new int[][]{
+                    {1, 1}, {1, 0}, {1, -1}, {0, 1}, {0, -1}, {-1, 1}, {-1, 0}, {-1, -1}});
+            // White pawns move towards row 0, black pawns towards row 7
+            PAWN_ATTACKS[ChessColor.WHITE.ordinal()][square] = leaperAttacks(square, new int[][]{{-1, -1}, {-1, 1}});
+            PAWN_ATTACKS[ChessColor.BLACK.ordinal()][square] = leaperAttacks(square, new int[][]{{1, -1}, {1, 1}});
+        }
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                if (a == b) continue;
+                long ends = Bitboards.bit(a) | Bitboards.bit(b);
+                if ((rookAttacks(a, 0) & Bitboards.bit(b)) != 0) {
+                    BETWEEN[a][b] = rookAttacks(a, Bitboards.bit(b)) & rookAttacks(b, Bitboards.bit(a));
+                    LINE[a][b] = (rookAttacks(a, 0) & rookAttacks(b, 0)) | ends;
+                } else if ((bishopAttacks(a, 0) & Bitboards.bit(b)) != 0) {
+                    BETWEEN[a][b] = bishopAttacks(a, Bitboards.bit(b)) & bishopAttacks(b, Bitboards.bit(a));
+                    LINE[a][b] = (bishopAttacks(a, 0) & bishopAttacks(b, 0)) | ends;
+                }
+            }
+        }
+    }
+
+    private Attacks() {
+    }
+
+    public static long rookAttacks(int square, long occupancy) {
+        int index = (int) (((occupancy & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+        return ROOK_TABLE[square][index];
+    }
+
+    public static long bishopAttacks(int square, long occupancy) {
+        int index = (int) (((occupancy & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+        return BISHOP_TABLE[square][index];
+    }
+
+    public static long queenAttacks(int square, long occupancy) {
+        return rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+    }
+
+    public static long sliderAttacks(PieceType type, int square, long occupancy) {
+        return switch (type) {
+            case ROOK -> rookAttacks(square, occupancy);
+            case BISHOP -> bishopAttacks(square, occupancy);
+            case QUEEN -> queenAttacks(square, occupancy);
+            default -> throw new IllegalArgumentException("Not a sliding piece: " + type);
+        };
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    // Squares a pawn of the given color attacks from 'square'
+    public static long pawnAttacks(ChessColor color, int square) {
+        return PAWN_ATTACKS[color.ordinal()][square];
+    }
+
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    /* ================== Table generation ================== */
+
+    private static long leaperAttacks(int square, int[][] offsets) {
+        long attacks = 0;
+        for (int[] offset : offsets) {
+            int x = Bitboards.row(square) + offset[0];
+            int y = Bitboards.col(square) + offset[1];
+            if (Bitboards.isOnBoard(x, y)) {
+                attacks |= Bitboards.bit(Bitboards.square(x, y));
+            }
+        }
+        return attacks;
+    }
+
+    private static void initMagic(int square, int[][] directions, long[] masks, long[] magics,
+                                  int[] shifts, long[][] tables) {
+        long mask = relevantBlockers(square, directions);
+        int bits = Long.bitCount(mask);
+        int shift = 64 - bits;
+        long magic = magics[square];
+        long[] table = new long[1 << bits];
+        boolean[] filled = new boolean[1 << bits];
+
+        // Walk every subset of the mask (carry-rippler) and store its attack set
+        long subset = 0;
+        do {
+            int index = (int) ((subset * magic) >>> shift);
+            long attacks = slowAttacks(square, subset, directions);
+            if (filled[index] && table[index] != attacks) {
+                throw new IllegalStateException("Bad magic number for square " + square);
+            }
+            filled[index] = true;
+            table[index] = attacks;
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+
+        masks[square] = mask;
+        shifts[square] = shift;
+        tables[square] = table;
+    }
+
+    // Squares whose occupancy matters, the last square of each ray never blocks anything
+    private static long relevantBlockers(int square, int[][] directions) {
+        long mask = 0;
+        int x0 = Bitboards.row(square);
+        int y0 = Bitboards.col(square);
+        for (int[] dir : directions) {
+            int x = x0 + dir[0];
+            int y = y0 + dir[1];
+            while (Bitboards.isOnBoard(x + dir[0], y + dir[1])) {
+                mask |= Bitboards.bit(Bitboards.square(x, y));
+                x += dir[0];
+                y += dir[1];
+            }
+        }
+        return mask;
+    }
+
+    private static long slowAttacks(int square, long occupancy, int[][] directions) {
+        long attacks = 0;
+        int x0 = Bitboards.row(square);
+        int y0 = Bitboards.col(square);
+        for (int[] dir : directions) {
+            int x = x0 + dir[0];
+            int y = y0 + dir[1];
+            while (Bitboards.isOnBoard(x, y)) {
+                long bit = Bitboards.bit(Bitboards.square(x, y));
+                attacks |= bit;
+                if ((occupancy & bit) != 0) break;
+                x += dir[0];
+                y += dir[1];
+            }
+        }
+        return attacks;
+    }
+}
@@ -0,0 +1,49 @@
+package src.main.java;
+
+/**
+ * Helpers for the 64-bit board representation.
+ * Square index = x * 8 + y, so bit 0 is Position(0, 0) (a8) and bit 63 is Position(7, 7) (h1).
+ */
+public final class Bitboards {
+    public static final int NO_SQUARE = -1;
+
+    private Bitboards() {
+    }
+
+    public static int square(int x, int y) {
+        return (x << 3) | y;
+    }
+
+    public static int square(Position pos) {
+        return square(pos.x, pos.y);
+    }
+
+    public static int row(int square) {
+        return square >>> 3;
+    }
+
+    public static int col(int square) {
+        return square & 7;
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    public static boolean isOnBoard(int x, int y) {
+        return x >= 0 && x < 8 && y >= 0 && y < 8;
+    }
+
+    public static Position toPosition(int square) {
+        return Position.of(square);
+    }
+
+    // Index of the lowest set bit, use together with bb &= bb - 1 to iterate a set
+    public static int first(long bb) {
+        return Long.numberOfTrailingZeros(bb);
+    }
+
+    public static int count(long bb) {
+        return Long.bitCount(bb);
+    }
+}
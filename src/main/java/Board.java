@@ -7,26 +7,42 @@ import java.util.List;
 
 
 public class Board {
-    private final List<Piece> pieces;
+    // Mailbox for constant time lookups, bitboards for set operations
+    private final Piece[] squares;
+    private final long[][] pieceBitboards; // [color][piece type]
+    private final long[] colorBitboards;   // [color]
+    private long occupancy;
+    private long zobristKey; // piece placement part, updated on every put/remove
+    private long pawnKey;    // the same keys for the pawns only, indexes the pawn hash
+    private int midgameScore; // Evaluation material + tables for white minus black, same updates
+    private int endgameScore;
+    private int phase;
     private final int width;
     private final int height;
 
     public Board() {
-        this.pieces = new ArrayList<>();
+        this.squares = new Piece[64];
+        this.pieceBitboards = new long[2][PieceType.values().length];
+        this.colorBitboards = new long[2];
         this.width = 8;
         this.height = 8;
         initializeBoard();
     }
 
     public Board(List<Piece> pieces) {
-        this.pieces = pieces;
+        this.squares = new Piece[64];
+        this.pieceBitboards = new long[2][PieceType.values().length];
+        this.colorBitboards = new long[2];
         this.width = 8;
         this.height = 8;
+        for (Piece piece : pieces) {
+            addPiece(piece);
+        }
     }
 
     public Board copy() {
         List<Piece> copiedPieces = new ArrayList<>();
-        for (Piece piece : this.pieces) {
+        for (Piece piece : getPieces()) {
             copiedPieces.add(piece.copy());
         }
         return new Board(copiedPieces);
@@ -38,55 +54,188 @@ public class Board {
 
         // mirror board creation
         for (int i = 0; i < this.width; i++) {
-            pieces.add(createPiece(order[i], ChessColor.BLACK, 0, i));
-            pieces.add(createPiece("pawn", ChessColor.BLACK, 1, i));
-            pieces.add(createPiece("pawn", ChessColor.WHITE, 6, i));
-            pieces.add(createPiece(order[i], ChessColor.WHITE, 7, i));
+            addPiece(createPiece(order[i], ChessColor.BLACK, 0, i));
+            addPiece(createPiece("pawn", ChessColor.BLACK, 1, i));
+            addPiece(createPiece("pawn", ChessColor.WHITE, 6, i));
+            addPiece(createPiece(order[i], ChessColor.WHITE, 7, i));
         }
     }
 
     private Piece createPiece(String name, ChessColor color, int row, int col) {
-        Position pos = new Position(row, col);
+        Position pos = Position.of(row, col);
 
         return switch (name.toLowerCase()) {
-            case "pawn" -> new Pawn(color, pos);
-            case "rook" -> new Rook(color, pos);
-            case "knight" -> new Knight(color, pos);
-            case "bishop" -> new Bishop(color, pos);
-            case "queen" -> new Queen(color, pos);
-            case "king" -> new King(color, pos);
+            case "pawn" -> createPiece(PieceType.PAWN, color, pos);
+            case "rook" -> createPiece(PieceType.ROOK, color, pos);
+            case "knight" -> createPiece(PieceType.KNIGHT, color, pos);
+            case "bishop" -> createPiece(PieceType.BISHOP, color, pos);
+            case "queen" -> createPiece(PieceType.QUEEN, color, pos);
+            case "king" -> createPiece(PieceType.KING, color, pos);
             default -> throw new IllegalArgumentException("Unknown piece name: " + name);
         };
     }
 
+    public static Piece createPiece(PieceType type, ChessColor color, Position pos) {
+        return switch (type) {
+            case PAWN -> new Pawn(color, pos);
+            case ROOK -> new Rook(color, pos);
+            case KNIGHT -> new Knight(color, pos);
+            case BISHOP -> new Bishop(color, pos);
+            case QUEEN -> new Queen(color, pos);
+            case KING -> new King(color, pos);
+        };
+    }
+
+    // Low level placement, every change of the position goes through these two
+    private void put(Piece piece, int square) {
+        long bit = Bitboards.bit(square);
+        int color = piece.getColor().ordinal();
+        squares[square] = piece;
+        pieceBitboards[color][piece.getType().ordinal()] |= bit;
+        colorBitboards[color] |= bit;
+        occupancy |= bit;
+        zobristKey ^= Zobrist.piece(piece.getColor(), piece.getType(), square);
+        if (piece.getType() == PieceType.PAWN) pawnKey ^= Zobrist.piece(piece.getColor(), PieceType.PAWN, square);
+        midgameScore += Evaluation.midgame(piece.getColor(), piece.getType(), square);
+        endgameScore += Evaluation.endgame(piece.getColor(), piece.getType(), square);
+        phase += Evaluation.phaseWeight(piece.getType());
+    }
+
+    private Piece remove(int square) {
+        Piece piece = squares[square];
+        if (piece == null) return null;
+        long bit = Bitboards.bit(square);
+        int color = piece.getColor().ordinal();
+        squares[square] = null;
+        pieceBitboards[color][piece.getType().ordinal()] &= ~bit;
+        colorBitboards[color] &= ~bit;
+        occupancy &= ~bit;
+        zobristKey ^= Zobrist.piece(piece.getColor(), piece.getType(), square);
+        if (piece.getType() == PieceType.PAWN) pawnKey ^= Zobrist.piece(piece.getColor(), PieceType.PAWN, square);
+        midgameScore -= Evaluation.midgame(piece.getColor(), piece.getType(), square);
+        endgameScore -= Evaluation.endgame(piece.getColor(), piece.getType(), square);
+        phase -= Evaluation.phaseWeight(piece.getType());
+        return piece;
+    }
+
     public void move(Position from, Position to) {
-        for (Piece p : pieces) {
-            if (p.getPosition().equals(from)) {
-                p.setPosition(to);
-                p.setHasMoved(true);
-                break;
-            }
+        Piece p = relocate(from, to);
+        if (p != null) {
+            p.setHasMoved(true);
         }
     }
 
+    // Moves a piece without touching its hasMoved flag, used to simulate moves.
+    // Whatever stood on 'to' is removed from the board.
+    Piece relocate(Position from, Position to) {
+        return relocate(Bitboards.square(from), Bitboards.square(to));
+    }
+
+    Piece relocate(int fromSquare, int toSquare) {
+        if (fromSquare == toSquare) return squares[fromSquare];
+
+        Piece p = remove(fromSquare);
+        if (p == null) return null;
+        remove(toSquare);
+        put(p, toSquare);
+        p.setPosition(Bitboards.toPosition(toSquare));
+        return p;
+    }
+
     public Piece getPieceAt(Position pos) {
-        for (Piece p : pieces) {
-            if (p.getPosition().equals(pos)) {
-                return p;
-            }
+        if (!Bitboards.isOnBoard(pos.x, pos.y)) {
+            return null;
         }
-        return null;
+        return squares[Bitboards.square(pos)];
+    }
+
+    public Piece getPieceAt(int square) {
+        return squares[square];
+    }
+
+    public boolean isOccupied(int square) {
+        return (occupancy & Bitboards.bit(square)) != 0;
     }
 
     public void addPiece(Piece piece) {
-        this.pieces.add(piece);
+        int square = Bitboards.square(piece.getPosition());
+        remove(square);
+        put(piece, square);
     }
 
     public void deletePieceAt(Position pos) {
-        pieces.removeIf(p -> p.getPosition().equals(pos));
+        if (Bitboards.isOnBoard(pos.x, pos.y)) {
+            remove(Bitboards.square(pos));
+        }
+    }
+
+    // Removes and returns the piece on a square (null if empty)
+    public Piece deletePieceAt(int square) {
+        return remove(square);
+    }
+
+    public long getBitboard(ChessColor color, PieceType type) {
+        return pieceBitboards[color.ordinal()][type.ordinal()];
     }
 
+    public long getOccupancy(ChessColor color) {
+        return colorBitboards[color.ordinal()];
+    }
+
+    public long getOccupancy() {
+        return occupancy;
+    }
+
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    public long getPawnKey() {
+        return pawnKey;
+    }
+
+    public int getMidgameScore() {
+        return midgameScore;
+    }
+
+    public int getEndgameScore() {
+        return endgameScore;
+    }
+
+    // Sum of Evaluation.phaseWeight over the pieces on the board
+    public int getPhase() {
+        return phase;
+    }
+
+    /**
+     * All pieces of 'byColor' attacking 'square', found by looking outward from the square:
+     * a knight/king/pawn attacks the square exactly when the same piece standing on it
+     * (a pawn of the other color) would attack the knight/king/pawn back.
+     */
+    public long attackersTo(int square, ChessColor byColor, long occupancy) {
+        long[] own = pieceBitboards[byColor.ordinal()];
+        long queens = own[PieceType.QUEEN.ordinal()];
+        return (Attacks.knightAttacks(square) & own[PieceType.KNIGHT.ordinal()])
+                | (Attacks.kingAttacks(square) & own[PieceType.KING.ordinal()])
+                | (Attacks.pawnAttacks(byColor.opposite(), square) & own[PieceType.PAWN.ordinal()])
+                | (Attacks.rookAttacks(square, occupancy) & (own[PieceType.ROOK.ordinal()] | queens))
+                | (Attacks.bishopAttacks(square, occupancy) & (own[PieceType.BISHOP.ordinal()] | queens));
+    }
+
+    public long attackersTo(int square, ChessColor byColor) {
+        return attackersTo(square, byColor, occupancy);
+    }
+
+    public boolean isSquareAttacked(int square, ChessColor byColor) {
+        return attackersTo(square, byColor, occupancy) != 0;
+    }
+
+    // Snapshot of the pieces on the board, safe to iterate while simulating moves
     public List<Piece> getPieces() {
+        List<Piece> pieces = new ArrayList<>(Bitboards.count(occupancy));
+        for (long bb = occupancy; bb != 0; bb &= bb - 1) {
+            pieces.add(squares[Bitboards.first(bb)]);
+        }
         return pieces;
     }
 
@@ -3,4 +3,8 @@ package src.main.java;
 public enum ChessColor {
     WHITE,
     BLACK;
+
+    public ChessColor opposite() {
+        return this == WHITE ? BLACK : WHITE;
+    }
 }
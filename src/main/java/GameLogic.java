@@ -6,18 +6,78 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class GameLogic {
+    // Castling rights bits
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+
+    private static final long LIGHT_SQUARES = 0xAA55AA55AA55AA55L; // (x + y) even, a8 is light
+
+    // Rights kept when a piece leaves or lands on a square (king and rook home squares clear them)
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        java.util.Arrays.fill(CASTLING_MASK, 15);
+        CASTLING_MASK[Bitboards.square(7, 0)] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[Bitboards.square(7, 7)] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[Bitboards.square(7, 4)] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[Bitboards.square(0, 0)] &= ~BLACK_QUEENSIDE;
+        CASTLING_MASK[Bitboards.square(0, 7)] &= ~BLACK_KINGSIDE;
+        CASTLING_MASK[Bitboards.square(0, 4)] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+    }
+
     private int moveNumber;
+    private int halfmoveClock; // plies since the last capture or pawn move, for the fifty-move rule
     private ChessColor turn;
     private final Board board;
     private final List<List<Piece>> capturedPieces;
-    private Position enPassantTargetSquare;
+    private int enPassantTargetSquare;
+    private int castlingRights;
+    private long zobristKey;
     private String drawReason = null;
 
+    // Undo stack for makeMove/unmakeMove, records are reused so probing allocates nothing
+    private UndoRecord[] history = new UndoRecord[256];
+    private int historySize = 0;
+
+    // Legal moves of the current position for the GUI and end-of-game queries: generated on
+    // the first query, reused until the position key changes (makeMove/unmakeMove) or updateState
+    private final int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+    private int legalMoveCount;
+    private long legalMovesKey;
+    private boolean legalMovesValid;
+    private final MovePicker movePicker = new MovePicker();
+    private final int[] exchangeGains = new int[StaticExchange.MAX_CAPTURES];
+
     public GameLogic(int moveNumber, ChessColor turn, Board board, List<List<Piece>> alreadyCapturedPieces) {
         this.moveNumber = moveNumber;
         this.turn = turn;
         this.board = board;
         this.capturedPieces = alreadyCapturedPieces;
+        this.enPassantTargetSquare = Bitboards.NO_SQUARE;
+        this.castlingRights = computeCastlingRights();
+        this.zobristKey = computeZobristKey();
+    }
+
+    /**
+     * Independent copy of the game for another thread (e.g. a search). The copy gets its own
+     * board and pieces; of the move history only the position keys are kept, enough for
+     * repetition detection but not for taking back moves played before the copy.
+     */
+    public GameLogic copy() {
+        GameLogic copy = new GameLogic(moveNumber, turn, board.copy(), List.of(new ArrayList<>(), new ArrayList<>()));
+        copy.halfmoveClock = halfmoveClock;
+        copy.castlingRights = castlingRights;
+        copy.enPassantTargetSquare = enPassantTargetSquare;
+        copy.zobristKey = zobristKey;
+        copy.history = new UndoRecord[Math.max(256, history.length)];
+        for (int i = 0; i < historySize; i++) {
+            copy.history[i] = new UndoRecord();
+            copy.history[i].zobristKey = history[i].zobristKey;
+        }
+        copy.historySize = historySize;
+        return copy;
     }
 
     public GameLogic() {
@@ -25,7 +85,103 @@ public class GameLogic {
         this.turn = ChessColor.WHITE;
         this.board = new Board();
         this.capturedPieces = List.of(new ArrayList<>(), new ArrayList<>());
-        this.enPassantTargetSquare = null;
+        this.enPassantTargetSquare = Bitboards.NO_SQUARE;
+        this.castlingRights = computeCastlingRights();
+        this.zobristKey = computeZobristKey();
+    }
+
+    /**
+     * Builds a game from a FEN string (placement, side to move, castling, en passant, clocks).
+     * hasMoved flags are derived from the castling field and the pawns' starting rows.
+     */
+    public static GameLogic fromFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        List<Piece> pieces = new ArrayList<>();
+        String[] rows = fields[0].split("/");
+        if (rows.length != 8) {
+            throw new IllegalArgumentException("Invalid FEN placement: " + fen);
+        }
+        for (int x = 0; x < 8; x++) {
+            int y = 0;
+            for (char c : rows[x].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    y += c - '0';
+                    continue;
+                }
+                ChessColor color = Character.isUpperCase(c) ? ChessColor.WHITE : ChessColor.BLACK;
+                PieceType type = switch (Character.toLowerCase(c)) {
+                    case 'p' -> PieceType.PAWN;
+                    case 'n' -> PieceType.KNIGHT;
+                    case 'b' -> PieceType.BISHOP;
+                    case 'r' -> PieceType.ROOK;
+                    case 'q' -> PieceType.QUEEN;
+                    case 'k' -> PieceType.KING;
+                    default -> throw new IllegalArgumentException("Invalid FEN piece '" + c + "': " + fen);
+                };
+                Piece piece = Board.createPiece(type, color, Position.of(x, y));
+                int startRow = (color == ChessColor.WHITE) ? 6 : 1;
+                piece.setHasMoved(type != PieceType.PAWN || x != startRow);
+                pieces.add(piece);
+                y++;
+            }
+        }
+
+        ChessColor turn = (fields.length > 1 && fields[1].equals("b")) ? ChessColor.BLACK : ChessColor.WHITE;
+        int fullMove = (fields.length > 5) ? Integer.parseInt(fields[5]) : 1;
+        int moveNumber = (fullMove - 1) * 2 + (turn == ChessColor.BLACK ? 1 : 0);
+        Board board = new Board(pieces);
+
+        // Kings and rooks that may still castle have not moved
+        String castling = (fields.length > 2) ? fields[2] : "-";
+        int rights = 0;
+        if (castling.indexOf('K') >= 0) rights |= WHITE_KINGSIDE;
+        if (castling.indexOf('Q') >= 0) rights |= WHITE_QUEENSIDE;
+        if (castling.indexOf('k') >= 0) rights |= BLACK_KINGSIDE;
+        if (castling.indexOf('q') >= 0) rights |= BLACK_QUEENSIDE;
+        int[][] homes = {{7, 7, WHITE_KINGSIDE}, {7, 0, WHITE_QUEENSIDE}, {0, 7, BLACK_KINGSIDE}, {0, 0, BLACK_QUEENSIDE}};
+        for (int[] home : homes) {
+            if ((rights & home[2]) != 0) {
+                Piece rook = board.getPieceAt(Bitboards.square(home[0], home[1]));
+                Piece king = board.getPieceAt(Bitboards.square(home[0], 4));
+                if (rook != null) rook.setHasMoved(false);
+                if (king != null) king.setHasMoved(false);
+            }
+        }
+
+        GameLogic game = new GameLogic(moveNumber, turn, board, List.of(new ArrayList<>(), new ArrayList<>()));
+        game.castlingRights = rights;
+        game.halfmoveClock = (fields.length > 4) ? Integer.parseInt(fields[4]) : 0;
+        if (fields.length > 3 && !fields[3].equals("-")) {
+            int y = fields[3].charAt(0) - 'a';
+            int x = '8' - fields[3].charAt(1);
+            // Same rule as makeMove: only kept when a pawn of the side to move can take
+            int target = Bitboards.square(x, y);
+            long pawns = board.getBitboard(turn, PieceType.PAWN);
+            if ((Attacks.pawnAttacks(turn.opposite(), target) & pawns) != 0) {
+                game.enPassantTargetSquare = target;
+            }
+        }
+        game.zobristKey = game.computeZobristKey();
+        return game;
+    }
+
+    // Castling rights are implied by the hasMoved flags of kings and rooks on their home squares
+    private int computeCastlingRights() {
+        int rights = 0;
+        if (isUnmoved(7, 4, PieceType.KING, ChessColor.WHITE)) {
+            if (isUnmoved(7, 7, PieceType.ROOK, ChessColor.WHITE)) rights |= WHITE_KINGSIDE;
+            if (isUnmoved(7, 0, PieceType.ROOK, ChessColor.WHITE)) rights |= WHITE_QUEENSIDE;
+        }
+        if (isUnmoved(0, 4, PieceType.KING, ChessColor.BLACK)) {
+            if (isUnmoved(0, 7, PieceType.ROOK, ChessColor.BLACK)) rights |= BLACK_KINGSIDE;
+            if (isUnmoved(0, 0, PieceType.ROOK, ChessColor.BLACK)) rights |= BLACK_QUEENSIDE;
+        }
+        return rights;
+    }
+
+    private boolean isUnmoved(int x, int y, PieceType type, ChessColor color) {
+        Piece p = board.getPieceAt(Bitboards.square(x, y));
+        return p != null && p.getType() == type && p.getColor() == color && !p.hasMoved();
     }
 
     public ChessColor getTurn() {
@@ -36,10 +192,109 @@ public class GameLogic {
         return moveNumber;
     }
 
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
     public Board getBoard() {
         return board;
     }
 
+    public int getEnPassantTargetSquare() {
+        return enPassantTargetSquare;
+    }
+
+    /** 64-bit Zobrist key of the position: placement, side to move, castling rights, en passant. */
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    // Key from scratch, the incremental one must always match it
+    public long computeZobristKey() {
+        long key = 0;
+        for (long bb = board.getOccupancy(); bb != 0; bb &= bb - 1) {
+            int square = Bitboards.first(bb);
+            Piece p = board.getPieceAt(square);
+            key ^= Zobrist.piece(p.getColor(), p.getType(), square);
+        }
+        return key ^ Zobrist.sideToMove(turn) ^ Zobrist.castling(castlingRights) ^ Zobrist.enPassant(enPassantTargetSquare);
+    }
+
+    /** Fills 'moves' with all legal moves of the side to move, returns the count. */
+    public int generateLegalMoves(int[] moves) {
+        return MoveGenerator.generateLegalMoves(this, moves);
+    }
+
+    // From the cache when it is filled, otherwise stops at the first legal move found
+    public boolean hasLegalMove() {
+        if (legalMovesValid && legalMovesKey == zobristKey) return legalMoveCount > 0;
+        movePicker.init(this, Move.NONE, Move.NONE, Move.NONE, null);
+        return movePicker.next() != Move.NONE;
+    }
+
+    private int cachedLegalMoves() {
+        if (!legalMovesValid || legalMovesKey != zobristKey) {
+            legalMoveCount = generateLegalMoves(legalMoves);
+            legalMovesKey = zobristKey;
+            legalMovesValid = true;
+        }
+        return legalMoveCount;
+    }
+
+    // Legal move from/to for the side to move (promotions default to queen), Move.NONE if illegal
+    public int findLegalMove(Position from, Position to) {
+        int fromSquare = Bitboards.square(from);
+        int toSquare = Bitboards.square(to);
+        int count = cachedLegalMoves();
+        for (int i = 0; i < count; i++) {
+            int move = legalMoves[i];
+            if (Move.from(move) == fromSquare && Move.to(move) == toSquare) {
+                return move; // queen promotion is generated first
+            }
+        }
+        return Move.NONE;
+    }
+
+    /** Fills 'moves' with the legal moves of the piece on 'from' only, returns the count. */
+    public int generateLegalMoves(Position from, int[] moves) {
+        int fromSquare = Bitboards.square(from);
+        int count = cachedLegalMoves();
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (Move.from(legalMoves[i]) == fromSquare) moves[kept++] = legalMoves[i];
+        }
+        return kept;
+    }
+
+    /**
+     * Static exchange evaluation of the legal move from/to: the material the mover expects to
+     * win (positive) or lose (negative) once all the captures on 'to' are played out.
+     * Returns 0 if the move is not legal.
+     */
+    public int staticExchange(Position from, Position to) {
+        int move = findLegalMove(from, to);
+        return move == Move.NONE ? 0 : StaticExchange.evaluate(board, move, exchangeGains);
+    }
+
+    public int staticExchange(int move) {
+        return StaticExchange.evaluate(board, move, exchangeGains);
+    }
+
+    // True if the opponent of the piece on 'pos' can win material by capturing it
+    public boolean isHanging(Position pos) {
+        Piece piece = board.getPieceAt(pos);
+        if (piece == null) return false;
+        int square = Bitboards.square(pos);
+        ChessColor them = piece.getColor().opposite();
+        for (long bb = board.attackersTo(square, them); bb != 0; bb &= bb - 1) {
+            int from = Bitboards.first(bb);
+            if (StaticExchange.evaluate(board, Move.encode(from, square, Move.CAPTURE), exchangeGains) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public boolean isMoveValid(Position from, Position to, boolean checkForCheck) {
         // board boundaries
         if (    from.x < 0 || to.x < 0 || from.y < 0 || to.y < 0 ||
@@ -48,6 +303,11 @@ public class GameLogic {
             return false;
         }
 
+        // Full legality comes from the move generator (pins, check evasions, castling)
+        if (checkForCheck) {
+            return findLegalMove(from, to) != Move.NONE;
+        }
+
         Piece fromPiece = this.board.getPieceAt(from);
         Piece toPiece = this.board.getPieceAt(to);
 
@@ -61,8 +321,15 @@ public class GameLogic {
             return false;
         }
 
-        // Check if 'to' is in the valid positions of 'from'
-        if (!fromPiece.getValidPositions().contains(to)) {
+        // Sliding pieces: one magic table lookup with the real occupancy covers
+        // both the geometry and the blockers along the path
+        if (fromPiece instanceof Rook || fromPiece instanceof Bishop || fromPiece instanceof Queen) {
+            long attacks = Attacks.sliderAttacks(fromPiece.getType(), Bitboards.square(from), board.getOccupancy());
+            if ((attacks & Bitboards.bit(Bitboards.square(to))) == 0) {
+                return false;
+            }
+        } else if (!fromPiece.getValidPositions().contains(to)) {
+            // Check if 'to' is in the valid positions of 'from'
             return false;
         }
 
@@ -71,27 +338,24 @@ public class GameLogic {
             if (fromPiece.hasMoved()) return false;
 
             int rookY = (to.y == 6) ? 7 : 0;
-            Position rookPos = new Position(from.x, rookY);
+            Position rookPos = Position.of(from.x, rookY);
             Piece rook = board.getPieceAt(rookPos);
             if (!(rook instanceof Rook) || rook.hasMoved()) return false;
 
             // Check spaces between king and rook are empty
             int step = (to.y - from.y > 0) ? 1 : -1;
             for (int y = from.y + step; y != rookY; y += step) {
-                if (board.getPieceAt(new Position(from.x, y)) != null) return false;
+                if (board.getPieceAt(Position.of(from.x, y)) != null) return false;
             }
 
             // Check king is not in check, or passing through check
+            ChessColor enemy = fromPiece.getColor().opposite();
             for (int y = from.y; y != to.y + step; y += step) {
-                fromPiece.position = new Position(from.x, y);
-                if (isKingInCheck((King) fromPiece)) {
-                    fromPiece.setPosition(from);
+                if (board.isSquareAttacked(Bitboards.square(from.x, y), enemy)) {
                     return false;
                 }
             }
 
-            fromPiece.setPosition(from);
-
             return true;
         }
 
@@ -99,51 +363,11 @@ public class GameLogic {
         if (fromPiece instanceof Pawn && toPiece == null &&
                 Math.abs(from.y - to.y) == 1 && to.x - from.x == (fromPiece.getColor() == ChessColor.WHITE ? -1 : 1)) {
 
-            if (to.equals(this.enPassantTargetSquare)) {
+            if (Bitboards.square(to) == this.enPassantTargetSquare) {
                 return true;
             }
         }
 
-        // For Rooks and Queens (vertical or horizontal moves)
-        if (fromPiece instanceof Rook || fromPiece instanceof Queen) {
-            if (from.x == to.x) { // Vertical move (same column)
-                int minY = Math.min(from.y, to.y);
-                int maxY = Math.max(from.y, to.y);
-                for (int y = minY + 1; y < maxY; y++) {
-                    if (this.board.getPieceAt(new Position(from.x, y)) != null) {
-                        return false; // Piece is blocking the path
-                    }
-                }
-            } else if (from.y == to.y) { // Horizontal move (same row)
-                int minX = Math.min(from.x, to.x);
-                int maxX = Math.max(from.x, to.x);
-                for (int x = minX + 1; x < maxX; x++) {
-                    if (this.board.getPieceAt(new Position(x, from.y)) != null) {
-                        return false; // Piece is blocking the path
-                    }
-                }
-            }
-        }
-
-        // For Bishops and Queens (diagonal moves)
-        if (fromPiece instanceof Bishop || fromPiece instanceof Queen) {
-            int deltaX = Math.abs(from.x - to.x);
-            int deltaY = Math.abs(from.y - to.y);
-            if (deltaX == deltaY) { // Ensure the move is diagonal
-                int stepX = (to.x > from.x) ? 1 : -1;
-                int stepY = (to.y > from.y) ? 1 : -1;
-                int x = from.x + stepX;
-                int y = from.y + stepY;
-                while (x != to.x && y != to.y) {
-                    if (this.board.getPieceAt(new Position(x, y)) != null) {
-                        return false; // Piece is blocking the path
-                    }
-                    x += stepX;
-                    y += stepY;
-                }
-            }
-        }
-
         // For Pawns (straight move or capture move)
         if (fromPiece instanceof Pawn) {
             // Regular move (one square forward)
@@ -163,173 +387,230 @@ public class GameLogic {
             }
         }
 
-        if (checkForCheck) {// Simulate the move
-            Piece originalToPiece = board.getPieceAt(to);
-            board.deletePieceAt(to);
-            fromPiece.setPosition(to);
-
-            King king = null;
-            for (Piece piece : board.getPieces()) {
-                if (piece instanceof King && piece.getColor() == this.turn) {
-                    king = (King) piece;
-                    break;
-                }
-            }
-            assert king != null;
-            boolean isStillCheck = isKingInCheck(king);
-
-            // Undo the move
-            fromPiece.setPosition(from);
-            if (originalToPiece != null) {
-                this.board.addPiece(originalToPiece);
-            }
-
-            return !isStillCheck;
-        }
-
         return true;
     }
 
     public boolean isKingInCheck(King king) {
-        Position kingPos = king.getPosition();
-
-        for (Piece piece : board.getPieces()) {
-            if (piece.getColor() != king.getColor()) {
-                List<Position> possibleMoves = piece.getValidPositions();
-                for (Position to : possibleMoves) {
-                    if (kingPos.equals(to) && this.isMoveValid(piece.getPosition(), to, false)) {
-                        return true;
-                    }
-                }
-            }
-        }
-
-        return false; // No enemy can reach the king
+        return getCheckers(king) != 0;
     }
 
-    public boolean isCheckmate() {
-        // Step 1: Find the king of the current color
-        King king = null;
-        for (Piece piece : board.getPieces()) {
-            if (piece instanceof King && piece.getColor() == this.turn) {
-                king = (King) piece;
-                break;
-            }
-        }
-
-        if (king == null) {
-            return false; // Shouldn't happen, but defensive check
-        }
+    // Enemy pieces giving check to 'king', as a set of squares
+    public long getCheckers(King king) {
+        int kingSquare = Bitboards.square(king.getPosition());
+        return board.attackersTo(kingSquare, king.getColor().opposite());
+    }
 
-        // Step 2: Check if the king is in check
-        if (!isKingInCheck(king)) {
-            return false;
-        }
+    // Checkers of the side to move
+    public long getCheckers() {
+        King king = findKing(this.turn);
+        return king == null ? 0 : getCheckers(king);
+    }
 
-        System.out.println("Check.");
+    /**
+     * State of the game for the side to move, in one pass: the checkers are computed once and
+     * the move search stops at the first legal move. Mate and stalemate come first, they end the
+     * game even on the move that also completes a repetition or the fifty moves.
+     */
+    public GameStatus getStatus() {
+        boolean hasKing = board.getBitboard(turn, PieceType.KING) != 0;
+        boolean inCheck = getCheckers() != 0;
+        if (hasKing && !hasLegalMove()) {
+            return inCheck ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+        }
+        if (isInsufficientMaterial()) return GameStatus.INSUFFICIENT_MATERIAL;
+        if (isFiftyMoveRule()) return GameStatus.FIFTY_MOVE_RULE;
+        if (isThreefoldRepetition()) return GameStatus.THREEFOLD_REPETITION;
+        return inCheck ? GameStatus.CHECK : GameStatus.ONGOING;
+    }
 
-        Board backup = this.board.copy();
+    public boolean isCheckmate() {
+        return getCheckers() != 0 && !hasLegalMove();
+    }
 
-        // Step 3: Check if any legal move can get out of check
-        for (Piece piece : backup.getPieces()) {
-            if (piece.getColor() != this.turn) continue;
+    public void updateState(Position from, Position to) {
+        updateState(createMove(from, to));
+    }
 
-            List<Position> validMoves = piece.getValidPositions();
-            for (Position to : validMoves) {
-                Position from = piece.getPosition();
+    public void updateState(int move) {
+        makeMove(move);
+        legalMovesValid = false;
 
-                if (!this.isMoveValid(from, to, false)) {
-                    continue;
-                }
+        // Bookkeeping for the GUI: remember what was captured
+        Piece capturedPiece = history[historySize - 1].captured;
+        if (capturedPiece != null) {
+            this.capturedPieces.get((capturedPiece.getColor() == ChessColor.WHITE) ? 1 : 0).add(capturedPiece);
+        }
+    }
 
-                // Simulate the move
-                Piece originalToPiece = board.getPieceAt(to);
-                board.deletePieceAt(to);
-                piece.setPosition(to);
+    /* ================== MAKE / UNMAKE ================== */
 
-                boolean stillInCheck;
-                if (piece instanceof King) {
-                    stillInCheck = this.isKingInCheck((King) piece);
-                } else {
-                    stillInCheck = this.isKingInCheck(king);
-                }
+    // Builds the encoded move for a from/to pair on the current board (pawns promote to queen)
+    public int createMove(Position from, Position to) {
+        int fromSquare = Bitboards.square(from);
+        int toSquare = Bitboards.square(to);
+        Piece piece = board.getPieceAt(fromSquare);
+        boolean capture = board.isOccupied(toSquare);
 
-                // Undo the move
-                piece.setPosition(from);
-                if (originalToPiece != null) {
-                    this.board.addPiece(originalToPiece);
-                }
-
-                if (!stillInCheck) {
-                    return false; // Found a move that avoids checkmate
-                }
+        if (piece instanceof King && Math.abs(to.y - from.y) == 2) {
+            return Move.encode(fromSquare, toSquare, to.y > from.y ? Move.KING_CASTLE : Move.QUEEN_CASTLE);
+        }
+        if (piece instanceof Pawn) {
+            if (to.x == 0 || to.x == 7) {
+                return Move.encode(fromSquare, toSquare, Move.promotionFlag(PieceType.QUEEN, capture));
+            }
+            if (Math.abs(to.x - from.x) == 2) {
+                return Move.encode(fromSquare, toSquare, Move.DOUBLE_PAWN_PUSH);
+            }
+            if (!capture && toSquare == enPassantTargetSquare) {
+                return Move.encode(fromSquare, toSquare, Move.EN_PASSANT);
             }
         }
-
-        String winner = this.turn == ChessColor.WHITE ? "BLACK" : "WHITE";
-        System.out.println("Checkmate. " + winner + " player wins.");
-        return true; // No valid moves to escape check
+        return Move.encode(fromSquare, toSquare, capture ? Move.CAPTURE : Move.QUIET);
     }
 
-    public void updateState(Position from, Position to) {
-        moveNumber++;
-
-        // Determine if castling is being performed
-        Piece movingPiece = board.getPieceAt(from);
-        if (movingPiece instanceof King && Math.abs(to.y - from.y) == 2) {
-            // King-side castling
-            if (to.y > from.y) {
-                Position rookFrom = new Position(from.x, 7);
-                Position rookTo = new Position(from.x, 5);
-                board.move(rookFrom, rookTo);
+    /**
+     * Plays an encoded move, pushing what is needed to take it back with {@link #unmakeMove()}.
+     * The move is not validated.
+     */
+    public void makeMove(int move) {
+        if (historySize == history.length) {
+            history = java.util.Arrays.copyOf(history, historySize * 2);
+        }
+        UndoRecord undo = history[historySize];
+        if (undo == null) {
+            undo = history[historySize] = new UndoRecord();
+        }
+        historySize++;
+
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        Piece piece = board.getPieceAt(from);
+        boolean white = piece.getColor() == ChessColor.WHITE;
+        long placementKey = board.getZobristKey();
+
+        undo.move = move;
+        undo.moved = piece;
+        undo.movedBefore = piece.hasMoved();
+        undo.rookMovedBefore = false;
+        undo.castlingRights = castlingRights;
+        undo.enPassantTargetSquare = enPassantTargetSquare;
+        undo.moveNumber = moveNumber;
+        undo.halfmoveClock = halfmoveClock;
+        undo.zobristKey = zobristKey;
+
+        // Captured piece (the en passant victim stands behind the target square)
+        if (flags == Move.EN_PASSANT) {
+            undo.captured = board.deletePieceAt(to + (white ? 8 : -8));
+        } else {
+            undo.captured = board.getPieceAt(to);
+        }
+
+        board.relocate(from, to);
+        piece.setHasMoved(true);
+
+        if (flags == Move.KING_CASTLE || flags == Move.QUEEN_CASTLE) {
+            int row = Bitboards.row(from);
+            int rookFrom = Bitboards.square(row, flags == Move.KING_CASTLE ? 7 : 0);
+            int rookTo = Bitboards.square(row, flags == Move.KING_CASTLE ? 5 : 3);
+            Piece rook = board.relocate(rookFrom, rookTo);
+            undo.rookMovedBefore = rook.hasMoved();
+            rook.setHasMoved(true);
+        } else if (Move.isPromotion(move)) {
+            // The record keeps its promoted piece around, searches promote on the same plies over and over
+            int index = Move.flags(move) & 3;
+            Piece promoted = undo.promoted[index];
+            if (promoted == null || promoted.getColor() != piece.getColor()) {
+                promoted = Board.createPiece(Move.promotionType(move), piece.getColor(), Bitboards.toPosition(to));
+                undo.promoted[index] = promoted;
             }
-            // Queen-side castling
-            else {
-                Position rookFrom = new Position(from.x, 0);
-                Position rookTo = new Position(from.x, 3);
-                board.move(rookFrom, rookTo);
+            promoted.setPosition(Bitboards.toPosition(to));
+            promoted.setHasMoved(true);
+            board.deletePieceAt(to);
+            board.addPiece(promoted);
+        }
+
+        // Placement changes were hashed by the board, the rest is swapped out here
+        long key = zobristKey ^ placementKey ^ board.getZobristKey();
+        key ^= Zobrist.castling(castlingRights) ^ Zobrist.enPassant(enPassantTargetSquare);
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        enPassantTargetSquare = Bitboards.NO_SQUARE;
+        if (flags == Move.DOUBLE_PAWN_PUSH) {
+            // Only kept when an enemy pawn can really take, so transpositions get the same key
+            int skipped = (from + to) / 2;
+            long enemyPawns = board.getBitboard(piece.getColor().opposite(), PieceType.PAWN);
+            if ((Attacks.pawnAttacks(piece.getColor(), skipped) & enemyPawns) != 0) {
+                enPassantTargetSquare = skipped;
             }
         }
+        moveNumber++;
+        // Captures and pawn moves are irreversible: the clock restarts and older positions cannot repeat
+        halfmoveClock = (undo.captured != null || piece instanceof Pawn) ? 0 : halfmoveClock + 1;
+        turn = (turn == ChessColor.WHITE) ? ChessColor.BLACK : ChessColor.WHITE;
+        zobristKey = key ^ Zobrist.castling(castlingRights) ^ Zobrist.enPassant(enPassantTargetSquare)
+                ^ Zobrist.blackToMove();
+    }
 
-        // Turn flip
-        if (turn == ChessColor.WHITE)
-            turn = ChessColor.BLACK;
-        else
-            turn = ChessColor.WHITE;
-
-        // delete captured piece (standard or en passant)
-        Piece capturedPiece = board.getPieceAt(to);
-        if (capturedPiece != null) {
-            // Regular capture
-            this.capturedPieces.get((capturedPiece.getColor() == ChessColor.WHITE) ? 1 : 0).add(capturedPiece);
-            System.out.println("Captured " + capturedPiece.getColor() + " " + capturedPiece.getName() + " at " + to);
+    /** Takes back the last move played with {@link #makeMove(int)}. */
+    public void unmakeMove() {
+        UndoRecord undo = history[--historySize];
+        int move = undo.move;
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        Piece piece = undo.moved;
+
+        turn = (turn == ChessColor.WHITE) ? ChessColor.BLACK : ChessColor.WHITE;
+        moveNumber = undo.moveNumber;
+        halfmoveClock = undo.halfmoveClock;
+        castlingRights = undo.castlingRights;
+        enPassantTargetSquare = undo.enPassantTargetSquare;
+        zobristKey = undo.zobristKey;
+
+        if (Move.isPromotion(move)) {
             board.deletePieceAt(to);
-        } else if (movingPiece instanceof Pawn && to.equals(enPassantTargetSquare)) {
-            // En passant capture
-            int direction = (movingPiece.getColor() == ChessColor.WHITE) ? 1 : -1;
-            Position capturedPawnPos = new Position(to.x + direction, to.y); // The pawn behind the en passant square
-            capturedPiece = board.getPieceAt(capturedPawnPos);
-            if (capturedPiece instanceof Pawn && capturedPiece.getColor() != movingPiece.getColor()) {
-                this.capturedPieces.get((capturedPiece.getColor() == ChessColor.WHITE) ? 1 : 0).add(capturedPiece);
-                System.out.println(
-                        "En passant capture: " + capturedPiece.getColor() +
-                                " " + capturedPiece.getName() +
-                                " at " + capturedPawnPos);
-                board.deletePieceAt(capturedPawnPos);
-            }
+            piece.setPosition(Bitboards.toPosition(from));
+            board.addPiece(piece);
+        } else {
+            board.relocate(to, from);
         }
+        piece.setHasMoved(undo.movedBefore);
 
-        // Determine if pawn just made two field move, opening en passant possibilities
-        if (movingPiece instanceof Pawn && Math.abs(to.x - from.x) == 2) {
-            int direction = (movingPiece.getColor() == ChessColor.WHITE) ? -1 : 1;
-            // The square behind the pawn (the one it "jumped over")
-            this.enPassantTargetSquare = new Position(from.x + direction, from.y);
-        } else {
-            // Reset en passant square if no pawn made such a move
-            this.enPassantTargetSquare = null;
+        if (flags == Move.KING_CASTLE || flags == Move.QUEEN_CASTLE) {
+            int row = Bitboards.row(from);
+            int rookFrom = Bitboards.square(row, flags == Move.KING_CASTLE ? 7 : 0);
+            int rookTo = Bitboards.square(row, flags == Move.KING_CASTLE ? 5 : 3);
+            Piece rook = board.relocate(rookTo, rookFrom);
+            rook.setHasMoved(undo.rookMovedBefore);
+        }
+
+        if (undo.captured != null) {
+            board.addPiece(undo.captured); // still knows its own square
         }
+    }
 
-        this.board.move(from, to);
+    private King findKing(ChessColor color) {
+        long kings = board.getBitboard(color, PieceType.KING);
+        return kings == 0 ? null : (King) board.getPieceAt(Bitboards.first(kings));
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    // Everything makeMove changes that cannot be recomputed from the move itself
+    private static final class UndoRecord {
+        int move;
+        Piece moved;
+        Piece captured;
+        final Piece[] promoted = new Piece[4]; // by promotion type, reused
+        boolean movedBefore;
+        boolean rookMovedBefore;
+        int castlingRights;
+        int enPassantTargetSquare;
+        int moveNumber;
+        int halfmoveClock;
+        long zobristKey; // key of the position before the move, the undo stack doubles as key history
     }
 
     //PRIMO TIPO DI PATTA --> STALEMATE
@@ -339,38 +620,7 @@ public class GameLogic {
     */
 
     public boolean isStalemate() {
-        King king = null;
-        for (Piece piece : board.getPieces()) {
-            if (piece instanceof King && piece.getColor() == this.turn) {
-                king = (King) piece;
-                break;
-            }
-        }
-
-        if (king == null) {
-            return false;
-        }
-
-        // SE KING IN CHECK
-        if (isKingInCheck(king)) {
-            return false;
-        }
-
-        // STEP "LEGALI"
-        for (Piece piece : board.getPieces()) {
-            if (piece.getColor() != this.turn) continue;
-
-            List<Position> validMoves = piece.getValidPositions();
-            for (Position to : validMoves) {
-                Position from = piece.getPosition();
-                if (this.isMoveValid(from, to, true)) {
-                    return false;
-                }
-            }
-        }
-
-        System.out.println("Stalemate. The game is a draw.");
-        return true; // NON CI SONO MOSSE E NON SIAMO IN CHECK --
+        return board.getBitboard(turn, PieceType.KING) != 0 && getCheckers() == 0 && !hasLegalMove();
     }
 
 
@@ -380,86 +630,65 @@ public class GameLogic {
     //     * - King and Knight vs King
     //     * - King and Bishop vs King and Bishop (same color bishops)
 
+    // Only popcounts of the bitboards, which makeMove keeps up to date
     public boolean isInsufficientMaterial() {
-        List<Piece> whitePieces = new ArrayList<>();
-        List<Piece> blackPieces = new ArrayList<>();
-
-        for (Piece piece : board.getPieces()) {
-            if (piece.getColor() == ChessColor.WHITE) {
-                whitePieces.add(piece);
-            } else {
-                blackPieces.add(piece);
-            }
-        }
-
-        if (whitePieces.size() > 2 || blackPieces.size() > 2) {
+        long white = board.getOccupancy(ChessColor.WHITE);
+        long black = board.getOccupancy(ChessColor.BLACK);
+        if (Long.bitCount(white) > 2 || Long.bitCount(black) > 2) {
             return false;
         }
 
+        long others = (white | black) & ~board.getBitboard(ChessColor.WHITE, PieceType.KING)
+                & ~board.getBitboard(ChessColor.BLACK, PieceType.KING);
+        long bishops = board.getBitboard(ChessColor.WHITE, PieceType.BISHOP) | board.getBitboard(ChessColor.BLACK, PieceType.BISHOP);
+        long minors = bishops | board.getBitboard(ChessColor.WHITE, PieceType.KNIGHT)
+                | board.getBitboard(ChessColor.BLACK, PieceType.KNIGHT);
+
         // King vs King
-        if (whitePieces.size() == 1 && blackPieces.size() == 1) {
-            System.out.println("Draw by insufficient material: King vs King");
+        if (others == 0) {
             return true;
         }
 
         // King and minor piece vs King
-        if (whitePieces.size() == 2 && blackPieces.size() == 1) {
-            Piece whiteNonKing = getNonKingPiece(whitePieces);
-            if (whiteNonKing instanceof Bishop || whiteNonKing instanceof Knight) {
-                System.out.println("Draw by insufficient material: King and " +
-                        whiteNonKing.getName() + " vs King");
-                return true;
-            }
-        }
-
-        if (blackPieces.size() == 2 && whitePieces.size() == 1) {
-            Piece blackNonKing = getNonKingPiece(blackPieces);
-            if (blackNonKing instanceof Bishop || blackNonKing instanceof Knight) {
-                System.out.println("Draw by insufficient material: King and " +
-                        blackNonKing.getName() + " vs King");
-                return true;
-            }
+        if (Long.bitCount(others) == 1) {
+            return (others & minors) != 0;
         }
 
-        // King and Bishop vs King and Bishop
-        if (whitePieces.size() == 2 && blackPieces.size() == 2) {
-            Piece whiteNonKing = getNonKingPiece(whitePieces);
-            Piece blackNonKing = getNonKingPiece(blackPieces);
+        // King and Bishop vs King and Bishop, one each, on squares of the same color
+        return others == bishops && Long.bitCount(bishops & white) == 1
+                && ((bishops & LIGHT_SQUARES) == 0 || (bishops & ~LIGHT_SQUARES) == 0);
+    }
 
-            if (whiteNonKing instanceof Bishop && blackNonKing instanceof Bishop) {
-                //STESSO COLORE
-                boolean whiteBishopColor = ((whiteNonKing.getPosition().x + whiteNonKing.getPosition().y) % 2) == 0;
-                boolean blackBishopColor = ((blackNonKing.getPosition().x + blackNonKing.getPosition().y) % 2) == 0;
+    //metodo + suo getter per semplficare in gamegui
+    public boolean isDraw() {
+        GameStatus status = getStatus();
+        drawReason = status.getDrawReason();
+        return status.isDraw();
+    }
 
-                if (whiteBishopColor == blackBishopColor) {
-                    System.out.println("Draw by insufficient material: King and Bishop vs King and Bishop (same color)");
-                    return true;
-                }
-            }
-        }
+    //ALTRE PATTE: regola delle 50 mosse e triplice ripetizione
 
-        return false;
+    public boolean isFiftyMoveRule() {
+        return halfmoveClock >= 100;
     }
 
-    private Piece getNonKingPiece(List<Piece> pieces) {
-        for (Piece piece : pieces) {
-            if (!(piece instanceof King)) {
-                return piece;
-            }
-        }
-        return null;
+    public boolean isThreefoldRepetition() {
+        return countRepetitions() >= 2;
     }
 
-    //metodo + suo getter per semplficare in gamegui
-    public boolean isDraw() {
-        if (isStalemate()) {
-            drawReason = "Stalemate";
-            return true;
-        } else if (isInsufficientMaterial()) {
-            drawReason = "Insufficient Material";
-            return true;
+    /**
+     * How many times the current position occurred before. Only positions with the same side
+     * to move since the last irreversible move (halfmove clock) can match, so the scan is short.
+     */
+    public int countRepetitions() {
+        int repetitions = 0;
+        int limit = Math.min(halfmoveClock, historySize);
+        for (int back = 4; back <= limit; back += 2) {
+            if (history[historySize - back].zobristKey == zobristKey) {
+                repetitions++;
+            }
         }
-        return false;
+        return repetitions;
     }
 
     public String getDrawReason() {
@@ -481,4 +710,16 @@ public class GameLogic {
         }
         return false;
     }
+
+    // Plays an encoded move (e.g. from the computer player) if it is legal
+    public boolean move(int move) {
+        int count = cachedLegalMoves();
+        for (int i = 0; i < count; i++) {
+            if (legalMoves[i] == move) {
+                updateState(move);
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,31 @@
+package src.main.java;
+
+/** State of a game for the side to move, see GameLogic.getStatus(). */
+public enum GameStatus {
+    ONGOING(null),
+    CHECK(null),
+    CHECKMATE(null),
+    STALEMATE("Stalemate"),
+    INSUFFICIENT_MATERIAL("Insufficient Material"),
+    FIFTY_MOVE_RULE("Fifty-Move Rule"),
+    THREEFOLD_REPETITION("Threefold Repetition");
+
+    private final String drawReason;
+
+    GameStatus(String drawReason) {
+        this.drawReason = drawReason;
+    }
+
+    public boolean isDraw() {
+        return drawReason != null;
+    }
+
+    public boolean isGameOver() {
+        return this != ONGOING && this != CHECK;
+    }
+
+    // Null unless the game is drawn
+    public String getDrawReason() {
+        return drawReason;
+    }
+}
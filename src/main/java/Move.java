@@ -0,0 +1,84 @@
+package src.main.java;
+
+/**
+ * Moves encoded in 16 bits of an int: from (6 bits), to (6 bits), flags (4 bits).
+ * Flags follow the usual layout: bit 2 = capture, bit 3 = promotion,
+ * the low two bits select the special move or the promotion piece.
+ */
+public final class Move {
+    public static final int NONE = 0;
+
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8;           // + 0..3 = knight, bishop, rook, queen
+    public static final int PROMOTION_CAPTURE = 12;
+
+    private static final PieceType[] PROMOTION_TYPES = {
+            PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN
+    };
+
+    private Move() {
+    }
+
+    public static int encode(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 12) & 0xF;
+    }
+
+    public static boolean isCapture(int move) {
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (flags(move) & PROMOTION) != 0;
+    }
+
+    public static boolean isCastle(int move) {
+        int flags = flags(move);
+        return flags == KING_CASTLE || flags == QUEEN_CASTLE;
+    }
+
+    public static PieceType promotionType(int move) {
+        return PROMOTION_TYPES[flags(move) & 3];
+    }
+
+    // Promotion flag for a piece type (knight, bishop, rook or queen)
+    public static int promotionFlag(PieceType type, boolean capture) {
+        int flag = (capture ? PROMOTION_CAPTURE : PROMOTION);
+        return switch (type) {
+            case KNIGHT -> flag;
+            case BISHOP -> flag + 1;
+            case ROOK -> flag + 2;
+            case QUEEN -> flag + 3;
+            default -> throw new IllegalArgumentException("Cannot promote to " + type);
+        };
+    }
+
+    public static String squareName(int square) {
+        return "" + (char) ('a' + Bitboards.col(square)) + (char) ('8' - Bitboards.row(square));
+    }
+
+    // Coordinate notation, e.g. e2e4 or e7e8q
+    public static String toString(int move) {
+        String s = squareName(from(move)) + squareName(to(move));
+        if (isPromotion(move)) {
+            s += "nbrq".charAt(flags(move) & 3);
+        }
+        return s;
+    }
+}
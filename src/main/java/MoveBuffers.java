@@ -0,0 +1,26 @@
+package src.main.java;
+
+/**
+ * One move buffer per ply, allocated once and reused for the whole analysis, for recursive
+ * code that keeps the moves of every ply alive at the same time (perft, searches):
+ *
+ *   int[] moves = buffers.get(ply);
+ *   int n = game.generateLegalMoves(moves);
+ *
+ * Moves are the 16-bit encoded ints of Move. Not thread-safe, one instance per thread.
+ */
+public final class MoveBuffers {
+    private final int[][] buffers;
+
+    public MoveBuffers(int maxPly) {
+        this.buffers = new int[maxPly + 1][MoveGenerator.MAX_MOVES];
+    }
+
+    public int[] get(int ply) {
+        return buffers[ply];
+    }
+
+    public int maxPly() {
+        return buffers.length - 1;
+    }
+}
@@ -0,0 +1,284 @@
+package src.main.java;
+
+/**
+ * Legal move generation for the side to move.
+ * Checkers and pinned pieces are computed once per position: a pinned piece may only move
+ * along the line through its king, and in check every non-king move must land on the
+ * check-evasion mask (capture the checker or block the ray). Nothing is played on the board.
+ */
+public final class MoveGenerator {
+    public static final int MAX_MOVES = 256;
+
+    // What to generate: captures (with en passant and every promotion), quiet moves (with castling), or both
+    public static final int CAPTURES = 1;
+    public static final int QUIETS = 2;
+    public static final int ALL = CAPTURES | QUIETS;
+
+    private MoveGenerator() {
+    }
+
+    /** Fills 'moves' with every legal move of the side to move and returns how many there are. */
+    public static int generateLegalMoves(GameLogic game, int[] moves) {
+        return generateLegalMoves(game, moves, ALL);
+    }
+
+    public static int generateCaptures(GameLogic game, int[] moves) {
+        return generateLegalMoves(game, moves, CAPTURES);
+    }
+
+    public static int generateQuiets(GameLogic game, int[] moves) {
+        return generateLegalMoves(game, moves, QUIETS);
+    }
+
+    /** Legal moves of the kinds selected by 'kinds' (CAPTURES, QUIETS or ALL). */
+    public static int generateLegalMoves(GameLogic game, int[] moves, int kinds) {
+        Board board = game.getBoard();
+        ChessColor us = game.getTurn();
+        ChessColor them = us.opposite();
+
+        long kings = board.getBitboard(us, PieceType.KING);
+        if (kings == 0) return 0;
+        int kingSquare = Bitboards.first(kings);
+
+        long occupancy = board.getOccupancy();
+        long enemy = board.getOccupancy(them);
+        long checkers = board.attackersTo(kingSquare, them, occupancy);
+        long kindMask = ((kinds & CAPTURES) != 0 ? enemy : 0) | ((kinds & QUIETS) != 0 ? ~occupancy : 0);
+        int count = 0;
+
+        // King moves, the king itself must not shield the squares behind it
+        long withoutKing = occupancy ^ Bitboards.bit(kingSquare);
+        for (long bb = Attacks.kingAttacks(kingSquare) & kindMask; bb != 0; bb &= bb - 1) {
+            int to = Bitboards.first(bb);
+            if (board.attackersTo(to, them, withoutKing) == 0) {
+                moves[count++] = Move.encode(kingSquare, to, (enemy & Bitboards.bit(to)) != 0 ? Move.CAPTURE : Move.QUIET);
+            }
+        }
+
+        // Double check: only the king can move
+        if (Bitboards.count(checkers) > 1) return count;
+
+        long checkMask = -1L;
+        if (checkers != 0) {
+            checkMask = checkers | Attacks.between(kingSquare, Bitboards.first(checkers));
+        }
+
+        long pinned = pinnedPieces(board, kingSquare, us, occupancy);
+        long targets = kindMask & checkMask;
+
+        // Knights: a pinned knight can never move
+        for (long bb = board.getBitboard(us, PieceType.KNIGHT) & ~pinned; bb != 0; bb &= bb - 1) {
+            int from = Bitboards.first(bb);
+            count = addMoves(moves, count, from, Attacks.knightAttacks(from) & targets, enemy);
+        }
+
+        // Sliders, pinned ones stay on the line through the king
+        long bishops = board.getBitboard(us, PieceType.BISHOP) | board.getBitboard(us, PieceType.QUEEN);
+        for (long bb = bishops; bb != 0; bb &= bb - 1) {
+            int from = Bitboards.first(bb);
+            long attacks = Attacks.bishopAttacks(from, occupancy) & targets;
+            if ((pinned & Bitboards.bit(from)) != 0) attacks &= Attacks.line(kingSquare, from);
+            count = addMoves(moves, count, from, attacks, enemy);
+        }
+        long rooks = board.getBitboard(us, PieceType.ROOK) | board.getBitboard(us, PieceType.QUEEN);
+        for (long bb = rooks; bb != 0; bb &= bb - 1) {
+            int from = Bitboards.first(bb);
+            long attacks = Attacks.rookAttacks(from, occupancy) & targets;
+            if ((pinned & Bitboards.bit(from)) != 0) attacks &= Attacks.line(kingSquare, from);
+            count = addMoves(moves, count, from, attacks, enemy);
+        }
+
+        count = addPawnMoves(game, moves, count, kinds, kingSquare, pinned, checkMask);
+
+        if (checkers == 0 && (kinds & QUIETS) != 0) {
+            count = addCastlingMoves(game, moves, count, kingSquare);
+        }
+        return count;
+    }
+
+    /**
+     * True if 'move' is legal for the side to move, without generating the other moves.
+     * Used for moves that come from elsewhere (hash table, killer slots) and may not fit the position.
+     */
+    public static boolean isLegal(GameLogic game, int move) {
+        if (move == Move.NONE) return false;
+        Board board = game.getBoard();
+        ChessColor us = game.getTurn();
+        ChessColor them = us.opposite();
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        if ((flags & 0b1110) == 0b0110) return false; // 6 and 7 are not used by the encoding
+        Piece piece = board.getPieceAt(from);
+        if (piece == null || piece.getColor() != us) return false;
+        PieceType type = piece.getType();
+        long kings = board.getBitboard(us, PieceType.KING);
+
+        if (Move.isCastle(move)) {
+            boolean kingside = flags == Move.KING_CASTLE;
+            return type == PieceType.KING && to == from + (kingside ? 2 : -2)
+                    && !board.isSquareAttacked(from, them) && canCastle(game, from, kingside);
+        }
+        if (flags == Move.EN_PASSANT) {
+            return type == PieceType.PAWN && to == game.getEnPassantTargetSquare()
+                    && (Attacks.pawnAttacks(us, from) & Bitboards.bit(to)) != 0
+                    && (kings == 0 || enPassantIsSafe(board, us, from, to, Bitboards.first(kings)));
+        }
+
+        long occupancy = board.getOccupancy();
+        long toBit = Bitboards.bit(to);
+        boolean capture = (board.getOccupancy(them) & toBit) != 0;
+        if ((board.getOccupancy(us) & toBit) != 0 || capture != Move.isCapture(move)) return false;
+
+        // The piece must reach 'to' with this kind of move
+        long reach;
+        if (type == PieceType.PAWN) {
+            int forward = us == ChessColor.WHITE ? -8 : 8;
+            int lastRow = us == ChessColor.WHITE ? 0 : 7;
+            if ((Bitboards.row(to) == lastRow) != Move.isPromotion(move)) return false;
+            if (capture) {
+                reach = Attacks.pawnAttacks(us, from);
+            } else if (flags == Move.DOUBLE_PAWN_PUSH) {
+                int startRow = us == ChessColor.WHITE ? 6 : 1;
+                reach = Bitboards.row(from) == startRow && (occupancy & Bitboards.bit(from + forward)) == 0
+                        ? Bitboards.bit(from + 2 * forward) : 0;
+            } else {
+                reach = Bitboards.bit(from + forward);
+            }
+        } else {
+            if (flags == Move.DOUBLE_PAWN_PUSH || Move.isPromotion(move)) return false;
+            reach = switch (type) {
+                case KNIGHT -> Attacks.knightAttacks(from);
+                case KING -> Attacks.kingAttacks(from);
+                default -> Attacks.sliderAttacks(type, from, occupancy);
+            };
+        }
+        if ((reach & toBit) == 0) return false;
+
+        // Our king must not be attacked once the move is made
+        long after = (occupancy ^ Bitboards.bit(from)) | toBit;
+        if (type == PieceType.KING) {
+            return board.attackersTo(to, them, after) == 0;
+        }
+        if (kings == 0) return true;
+        return (board.attackersTo(Bitboards.first(kings), them, after) & ~toBit) == 0;
+    }
+
+    // Own pieces that are the only blocker between the king and an enemy slider
+    private static long pinnedPieces(Board board, int kingSquare, ChessColor us, long occupancy) {
+        ChessColor them = us.opposite();
+        long enemy = board.getOccupancy(them);
+        long queens = board.getBitboard(them, PieceType.QUEEN);
+        // Enemy sliders that would hit the king if our own pieces were not there
+        long snipers = (Attacks.rookAttacks(kingSquare, enemy) & (board.getBitboard(them, PieceType.ROOK) | queens))
+                | (Attacks.bishopAttacks(kingSquare, enemy) & (board.getBitboard(them, PieceType.BISHOP) | queens));
+
+        long pinned = 0;
+        for (long bb = snipers; bb != 0; bb &= bb - 1) {
+            long blockers = Attacks.between(kingSquare, Bitboards.first(bb)) & occupancy;
+            if (Bitboards.count(blockers) == 1) {
+                pinned |= blockers & board.getOccupancy(us);
+            }
+        }
+        return pinned;
+    }
+
+    private static int addPawnMoves(GameLogic game, int[] moves, int count, int kinds, int kingSquare,
+                                    long pinned, long checkMask) {
+        Board board = game.getBoard();
+        ChessColor us = game.getTurn();
+        ChessColor them = us.opposite();
+        long occupancy = board.getOccupancy();
+        long enemy = board.getOccupancy(them);
+        boolean white = us == ChessColor.WHITE;
+        int forward = white ? -8 : 8;
+        int startRow = white ? 6 : 1;
+        int lastRow = white ? 0 : 7;
+        boolean captures = (kinds & CAPTURES) != 0;
+        boolean quiets = (kinds & QUIETS) != 0;
+
+        for (long bb = board.getBitboard(us, PieceType.PAWN); bb != 0; bb &= bb - 1) {
+            int from = Bitboards.first(bb);
+            long allowed = checkMask;
+            if ((pinned & Bitboards.bit(from)) != 0) allowed &= Attacks.line(kingSquare, from);
+
+            boolean promotes = Bitboards.row(from + forward) == lastRow;
+            long targets = captures ? Attacks.pawnAttacks(us, from) & enemy : 0;
+            int one = from + forward;
+            if ((occupancy & Bitboards.bit(one)) == 0) {
+                // A push that promotes counts as a capture, it changes the material
+                if (promotes ? captures : quiets) targets |= Bitboards.bit(one);
+                int two = one + forward;
+                if (quiets && Bitboards.row(from) == startRow && (occupancy & Bitboards.bit(two)) == 0
+                        && (allowed & Bitboards.bit(two)) != 0) {
+                    moves[count++] = Move.encode(from, two, Move.DOUBLE_PAWN_PUSH);
+                }
+            }
+
+            for (long t = targets & allowed; t != 0; t &= t - 1) {
+                int to = Bitboards.first(t);
+                boolean capture = (enemy & Bitboards.bit(to)) != 0;
+                if (promotes) {
+                    moves[count++] = Move.encode(from, to, Move.promotionFlag(PieceType.QUEEN, capture));
+                    moves[count++] = Move.encode(from, to, Move.promotionFlag(PieceType.ROOK, capture));
+                    moves[count++] = Move.encode(from, to, Move.promotionFlag(PieceType.BISHOP, capture));
+                    moves[count++] = Move.encode(from, to, Move.promotionFlag(PieceType.KNIGHT, capture));
+                } else {
+                    moves[count++] = Move.encode(from, to, capture ? Move.CAPTURE : Move.QUIET);
+                }
+            }
+        }
+
+        int ep = game.getEnPassantTargetSquare();
+        if (captures && ep != Bitboards.NO_SQUARE) {
+            for (long bb = Attacks.pawnAttacks(them, ep) & board.getBitboard(us, PieceType.PAWN); bb != 0; bb &= bb - 1) {
+                int from = Bitboards.first(bb);
+                if (enPassantIsSafe(board, us, from, ep, kingSquare)) {
+                    moves[count++] = Move.encode(from, ep, Move.EN_PASSANT);
+                }
+            }
+        }
+        return count;
+    }
+
+    // En passant removes two pieces from one line, so it is checked by replaying the occupancy
+    private static boolean enPassantIsSafe(Board board, ChessColor us, int from, int ep, int kingSquare) {
+        int captured = ep - (us == ChessColor.WHITE ? -8 : 8);
+        long after = (board.getOccupancy() ^ Bitboards.bit(from) ^ Bitboards.bit(captured)) | Bitboards.bit(ep);
+        return (board.attackersTo(kingSquare, us.opposite(), after) & ~Bitboards.bit(captured)) == 0;
+    }
+
+    private static int addCastlingMoves(GameLogic game, int[] moves, int count, int kingSquare) {
+        if (canCastle(game, kingSquare, true)) {
+            moves[count++] = Move.encode(kingSquare, kingSquare + 2, Move.KING_CASTLE);
+        }
+        if (canCastle(game, kingSquare, false)) {
+            moves[count++] = Move.encode(kingSquare, kingSquare - 2, Move.QUEEN_CASTLE);
+        }
+        return count;
+    }
+
+    // The king must not be in check, the caller tests that
+    private static boolean canCastle(GameLogic game, int kingSquare, boolean kingside) {
+        Board board = game.getBoard();
+        ChessColor them = game.getTurn().opposite();
+        boolean white = game.getTurn() == ChessColor.WHITE;
+        int right = kingside
+                ? (white ? GameLogic.WHITE_KINGSIDE : GameLogic.BLACK_KINGSIDE)
+                : (white ? GameLogic.WHITE_QUEENSIDE : GameLogic.BLACK_QUEENSIDE);
+        int step = kingside ? 1 : -1;
+        int rook = Bitboards.square(Bitboards.row(kingSquare), kingside ? 7 : 0);
+        return (game.getCastlingRights() & right) != 0
+                && (board.getOccupancy() & Attacks.between(kingSquare, rook)) == 0
+                && !board.isSquareAttacked(kingSquare + step, them)
+                && !board.isSquareAttacked(kingSquare + 2 * step, them);
+    }
+
+    private static int addMoves(int[] moves, int count, int from, long targets, long enemy) {
+        for (long bb = targets; bb != 0; bb &= bb - 1) {
+            int to = Bitboards.first(bb);
+            moves[count++] = Move.encode(from, to, (enemy & Bitboards.bit(to)) != 0 ? Move.CAPTURE : Move.QUIET);
+        }
+        return count;
+    }
+}
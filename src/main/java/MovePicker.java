@@ -0,0 +1,153 @@
+package src.main.java;
+
+/**
+ * Hands out the legal moves of a position one at a time, best candidates first, generating
+ * each group only when the caller asks past the previous one:
+ * hash move, captures (most valuable victim, least valuable attacker), killer moves,
+ * then the remaining quiet moves by history score.
+ * A caller that stops early (a cutoff, "is there any legal move") never pays for the rest.
+ *
+ * Pickers are reusable: call init() for every new position.
+ */
+public class MovePicker {
+    private static final int HASH = 0;
+    private static final int GENERATE_CAPTURES = 1;
+    private static final int CAPTURES = 2;
+    private static final int KILLERS = 3;
+    private static final int GENERATE_QUIETS = 4;
+    private static final int QUIETS = 5;
+    private static final int DONE = 6;
+
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    private final int[] scores = new int[MoveGenerator.MAX_MOVES];
+    private GameLogic game;
+    private int stage;
+    private int index;
+    private int count;
+    private boolean capturesOnly;
+
+    private int hashMove;
+    private int killer1;
+    private int killer2;
+    private int killersPlayed; // bit 0 and 1: killer1 / killer2 was handed out
+    private int[][] history;   // [color][from * 64 + to], may be null
+
+    public void init(GameLogic game, int hashMove, int killer1, int killer2, int[][] history) {
+        this.game = game;
+        this.hashMove = hashMove;
+        this.killer1 = killer1;
+        this.killer2 = killer2;
+        this.history = history;
+        this.killersPlayed = 0;
+        this.capturesOnly = false;
+        this.stage = HASH;
+    }
+
+    // Captures and promotions only, for quiescence
+    public void initCaptures(GameLogic game) {
+        init(game, Move.NONE, Move.NONE, Move.NONE, null);
+        this.capturesOnly = true;
+        this.stage = GENERATE_CAPTURES;
+    }
+
+    /** The next legal move, or Move.NONE when there are no more. */
+    public int next() {
+        while (true) {
+            switch (stage) {
+                case HASH -> {
+                    stage = GENERATE_CAPTURES;
+                    if (MoveGenerator.isLegal(game, hashMove)) return hashMove;
+                }
+                case GENERATE_CAPTURES -> {
+                    count = MoveGenerator.generateCaptures(game, moves);
+                    index = 0;
+                    scoreCaptures();
+                    stage = CAPTURES;
+                }
+                case CAPTURES -> {
+                    while (index < count) {
+                        int move = pickNext();
+                        if (move != hashMove) return move;
+                    }
+                    stage = capturesOnly ? DONE : KILLERS;
+                }
+                case KILLERS -> {
+                    if ((killersPlayed & 1) == 0 && isPlayableKiller(killer1)) {
+                        killersPlayed |= 1;
+                        return killer1;
+                    }
+                    if ((killersPlayed & 2) == 0 && killer2 != killer1 && isPlayableKiller(killer2)) {
+                        killersPlayed |= 2;
+                        return killer2;
+                    }
+                    stage = GENERATE_QUIETS;
+                }
+                case GENERATE_QUIETS -> {
+                    count = MoveGenerator.generateQuiets(game, moves);
+                    index = 0;
+                    scoreQuiets();
+                    stage = QUIETS;
+                }
+                case QUIETS -> {
+                    while (index < count) {
+                        int move = pickNext();
+                        if (!isDuplicate(move)) return move;
+                    }
+                    stage = DONE;
+                }
+                default -> {
+                    return Move.NONE;
+                }
+            }
+        }
+    }
+
+    // Killers are quiet moves from sibling positions, captures were already handed out
+    private boolean isPlayableKiller(int killer) {
+        return killer != hashMove && !Move.isCapture(killer) && !Move.isPromotion(killer)
+                && MoveGenerator.isLegal(game, killer);
+    }
+
+    // Already handed out by an earlier stage
+    private boolean isDuplicate(int move) {
+        return move == hashMove
+                || (move == killer1 && (killersPlayed & 1) != 0)
+                || (move == killer2 && (killersPlayed & 2) != 0);
+    }
+
+    private void scoreCaptures() {
+        Board board = game.getBoard();
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            Piece victim = board.getPieceAt(Move.to(move));
+            Piece attacker = board.getPieceAt(Move.from(move));
+            int victimValue = victim != null ? StaticExchange.value(victim.getType())
+                    : Move.flags(move) == Move.EN_PASSANT ? StaticExchange.value(PieceType.PAWN) : 0;
+            if (Move.isPromotion(move)) victimValue += StaticExchange.value(Move.promotionType(move));
+            scores[i] = victimValue * 8 - attacker.getType().ordinal();
+        }
+    }
+
+    private void scoreQuiets() {
+        int[] table = history == null ? null : history[game.getTurn().ordinal()];
+        for (int i = 0; i < count; i++) {
+            scores[i] = table == null ? 0 : table[Move.from(moves[i]) * 64 + Move.to(moves[i])];
+        }
+    }
+
+    // Selection sort step: the best remaining move is swapped to 'index' and returned
+    private int pickNext() {
+        int best = index;
+        for (int j = index + 1; j < count; j++) {
+            if (scores[j] > scores[best]) best = j;
+        }
+        int move = moves[best];
+        moves[best] = moves[index];
+        moves[index] = move;
+        int score = scores[best];
+        scores[best] = scores[index];
+        scores[index] = score;
+        index++;
+        return move;
+    }
+}
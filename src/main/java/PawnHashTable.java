@@ -0,0 +1,65 @@
+package src.main.java;
+
+/**
+ * Direct-mapped cache of pawn structure scores, keyed by the board's pawn-only Zobrist key.
+ * Pawns move rarely compared to the other pieces, so most evaluations hit the cache.
+ * Entries are kept in primitive arrays (key, packed score); not thread safe, one per search thread.
+ */
+public class PawnHashTable {
+    private final long[] keys;
+    private final int[] scores; // Evaluation.pack(midgame, endgame)
+    private final int mask;
+    private long hits;
+    private long probes;
+
+    // 'entries' is rounded down to a power of two
+    public PawnHashTable(int entries) {
+        int size = Integer.highestOneBit(Math.max(2, entries));
+        this.keys = new long[size];
+        this.scores = new int[size];
+        this.mask = size - 1;
+        clear();
+    }
+
+    /** Packed pawn structure score of the board, computed and stored on a miss. */
+    public int probe(Board board) {
+        long key = board.getPawnKey();
+        int index = (int) key & mask;
+        probes++;
+        if (keys[index] == key) {
+            hits++;
+            return scores[index];
+        }
+        int score = Evaluation.pawnStructure(board);
+        keys[index] = key;
+        scores[index] = score;
+        return score;
+    }
+
+    public void clear() {
+        // 0 is a real key (no pawns): an empty slot holds a key that maps to another slot
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i ^ 1L;
+        }
+        hits = 0;
+        probes = 0;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getProbes() {
+        return probes;
+    }
+
+    public double getHitRate() {
+        return probes == 0 ? 0.0 : (double) hits / probes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PawnHash{entries=%d, probes=%d, hits=%d, hitRate=%.1f%%}",
+                keys.length, probes, hits, 100.0 * getHitRate());
+    }
+}
@@ -0,0 +1,196 @@
+package src.main.java;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Perft: counts the leaf nodes of the legal move tree to a fixed depth.
+ * Used to check the move generator against known node counts and to measure its speed.
+ *
+ * Usage:
+ *   Perft [-t threads] depth [fen]   divide output for one position
+ *   Perft [-t threads] --suite [depth]   run the reference positions up to 'depth' (default 4), then the key checks
+ */
+public class Perft {
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // Reference positions with their node counts for depth 1, 2, 3, ...
+    private static final String[] SUITE_FENS = {
+            START_FEN,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "r2q1rk1/pP1p2pp/Q4n2/bbp1p3/Np6/1B3NBn/pPPP1PPP/R3K2R b KQ - 0 1" // position 4 mirrored
+    };
+    private static final long[][] SUITE_NODES = {
+            {20, 400, 8902, 197281, 4865609, 119060324L},
+            {48, 2039, 97862, 4085603, 193690690L},
+            {14, 191, 2812, 43238, 674624, 11030083L},
+            {6, 264, 9467, 422333, 15833292L},
+            {44, 1486, 62379, 2103487, 89941194L},
+            {6, 264, 9467, 422333, 15833292L}
+    };
+
+    // Move sequences from the start position and the FEN of the position they reach: both must get the same key
+    private static final String[][] KEY_CASES = {
+            {"e2e4", "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1"},    // no pawn can take on e3
+            {"e2e4 d7d5 e4e5 f7f5", "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3"}
+    };
+
+    public record Result(long nodes, long nanos) {
+    }
+
+    private final MoveBuffers moveBuffers;
+
+    private Perft(int depth) {
+        this.moveBuffers = new MoveBuffers(depth);
+    }
+
+    public static long perft(GameLogic game, int depth) {
+        if (depth <= 0) return 1;
+        return new Perft(depth).count(game, depth);
+    }
+
+    // Bulk counting: at depth 1 the number of legal moves is the number of leaves
+    private long count(GameLogic game, int depth) {
+        int[] moves = moveBuffers.get(depth);
+        int n = game.generateLegalMoves(moves);
+        if (depth == 1) return n;
+
+        long nodes = 0;
+        for (int i = 0; i < n; i++) {
+            game.makeMove(moves[i]);
+            nodes += count(game, depth - 1);
+            game.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Perft with the root moves split across 'threads' workers.
+     * Every worker plays on its own copy of the position, built from the FEN before the clock starts.
+     */
+    public static Result divide(String fen, int depth, int threads, boolean print) throws Exception {
+        if (depth <= 0) return new Result(1, 0); // the root itself, no moves to split
+
+        int workers = Math.max(1, threads);
+        BlockingQueue<GameLogic> positions = new ArrayBlockingQueue<>(workers);
+        for (int i = 0; i < workers; i++) {
+            positions.add(GameLogic.fromFen(fen));
+        }
+        int[] rootMoves = new int[MoveGenerator.MAX_MOVES];
+        int n = positions.peek().generateLegalMoves(rootMoves);
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try {
+            long start = System.nanoTime();
+            List<Future<Long>> results = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                int move = rootMoves[i];
+                results.add(pool.submit(() -> {
+                    GameLogic game = positions.take();
+                    try {
+                        game.makeMove(move);
+                        long nodes = perft(game, depth - 1);
+                        game.unmakeMove();
+                        return nodes;
+                    } finally {
+                        positions.put(game);
+                    }
+                }));
+            }
+
+            long total = 0;
+            for (int i = 0; i < n; i++) {
+                long nodes = results.get(i).get();
+                if (print) System.out.println(Move.toString(rootMoves[i]) + ": " + nodes);
+                total += nodes;
+            }
+            return new Result(total, System.nanoTime() - start);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static boolean runSuite(int maxDepth, int threads) throws Exception {
+        boolean allPassed = true;
+        long totalNodes = 0;
+        long totalNanos = 0;
+        for (int i = 0; i < SUITE_FENS.length; i++) {
+            for (int depth = 1; depth <= Math.min(maxDepth, SUITE_NODES[i].length); depth++) {
+                long expected = SUITE_NODES[i][depth - 1];
+                Result result = divide(SUITE_FENS[i], depth, threads, false);
+                long nodes = result.nodes();
+                totalNodes += nodes;
+                totalNanos += result.nanos();
+                boolean ok = nodes == expected;
+                allPassed &= ok;
+                System.out.printf("%s  position %d depth %d: %d (expected %d)%n",
+                        ok ? "OK  " : "FAIL", i + 1, depth, nodes, expected);
+            }
+        }
+        printSpeed(totalNodes, totalNanos);
+        return checkKeys() && allPassed;
+    }
+
+    private static boolean checkKeys() {
+        boolean allPassed = true;
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (String[] keyCase : KEY_CASES) {
+            GameLogic game = GameLogic.fromFen(START_FEN);
+            for (String name : keyCase[0].split(" ")) {
+                int n = game.generateLegalMoves(moves);
+                for (int i = 0; i < n; i++) {
+                    if (Move.toString(moves[i]).equals(name)) {
+                        game.makeMove(moves[i]);
+                        break;
+                    }
+                }
+            }
+            boolean ok = game.getZobristKey() == GameLogic.fromFen(keyCase[1]).getZobristKey();
+            allPassed &= ok;
+            System.out.printf("%s  key after %s%n", ok ? "OK  " : "FAIL", keyCase[0]);
+        }
+        return allPassed;
+    }
+
+    private static void printSpeed(long nodes, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("Nodes: %d  Time: %.3f s  NPS: %.0f%n", nodes, seconds, nodes / Math.max(seconds, 1e-9));
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = 1;
+        List<String> rest = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-t") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else {
+                rest.add(args[i]);
+            }
+        }
+
+        if (!rest.isEmpty() && rest.get(0).equals("--suite")) {
+            int depth = rest.size() > 1 ? Integer.parseInt(rest.get(1)) : 4;
+            boolean passed = runSuite(depth, threads);
+            System.exit(passed ? 0 : 1);
+        }
+
+        if (rest.isEmpty()) {
+            System.out.println("Usage: Perft [-t threads] depth [fen] | Perft [-t threads] --suite [depth]");
+            System.exit(2);
+        }
+
+        int depth = Integer.parseInt(rest.get(0));
+        String fen = rest.size() > 1 ? String.join(" ", rest.subList(1, rest.size())) : START_FEN;
+        Result result = divide(fen, depth, threads, true);
+        System.out.println();
+        printSpeed(result.nodes(), result.nanos());
+    }
+}
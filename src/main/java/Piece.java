@@ -1,13 +1,10 @@
 package src.main.java;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntToLongFunction;
 
 public abstract class Piece {
-    protected BufferedImage texture;
     protected String name;
     protected boolean hasMoved; // Needed for castle cases
     protected ChessColor color;
@@ -18,20 +15,34 @@ public abstract class Piece {
         this.color = color;
         this.position = startPos;
         this.hasMoved = false;
-
-        String path = String.format("assets/%s_%s.png", color.name().toLowerCase(), name.toLowerCase());
-        try {
-            this.texture = ImageIO.read(new File(path));
-        } catch (IOException e) {
-            System.err.println("Error loading texture for " + name + ": " + e.getMessage());
-            this.texture = null;
-        }
     }
 
+    // Candidate destinations on an empty board, on-board squares only. Shared read-only list.
     public abstract List<Position> getValidPositions();
 
     public abstract Piece copy();
 
+    public abstract PieceType getType();
+
+    // Candidate lists by square, built once by the piece classes from a set of target squares
+    @SuppressWarnings("unchecked")
+    protected static List<Position>[] targetTable(IntToLongFunction targets) {
+        List<Position>[] table = (List<Position>[]) new List<?>[64];
+        for (int square = 0; square < 64; square++) {
+            table[square] = List.copyOf(toPositions(targets.applyAsLong(square)));
+        }
+        return table;
+    }
+
+    // Converts a set of target squares into positions
+    public static List<Position> toPositions(long targets) {
+        List<Position> positions = new ArrayList<>(Bitboards.count(targets));
+        for (long bb = targets; bb != 0; bb &= bb - 1) {
+            positions.add(Bitboards.toPosition(Bitboards.first(bb)));
+        }
+        return positions;
+    }
+
     //getters e setters utili per board (?) non so se bisogna crearne altri
     public Position getPosition() {
         return position;
@@ -49,10 +60,6 @@ public abstract class Piece {
         this.hasMoved = moved;
     }
 
-    public BufferedImage getTexture() {
-        return texture;
-    }
-
     public ChessColor getColor() {
         return color;
     }
@@ -1,39 +1,38 @@
 package src.main.java.Pieces;
 
+import src.main.java.Attacks;
+import src.main.java.Bitboards;
 import src.main.java.ChessColor;
 import src.main.java.Piece;
+import src.main.java.PieceType;
 import src.main.java.Position;
-import java.util.ArrayList;
 
-import javax.swing.*;
 import java.util.List;
 
 public class Bishop extends Piece {
+    private static final List<Position>[] TARGETS = targetTable(square -> Attacks.bishopAttacks(square, 0L));
+
     public Bishop(ChessColor color, Position startPos) {
         super("Bishop", color, startPos);
     }
 
     @Override
     public Piece copy() {
-        Bishop copy = new Bishop(this.color, new Position(this.position.x, this.position.y));
+        Bishop copy = new Bishop(this.color, this.position);
         copy.setHasMoved(this.hasMoved());
         return copy;
     }
 
+    @Override
+    public PieceType getType() {
+        return PieceType.BISHOP;
+    }
+
     @Override
     public List<Position> getValidPositions() {
-        List<Position> validPositions = new ArrayList<>();
-        int x = this.position.x;
-        int y = this.position.y;
-
-        for (int i = 1; i < 8; i++) {
-            validPositions.add(new Position(x + i, y + i)); // down-right
-            validPositions.add(new Position(x + i, y - i)); // down-left
-            validPositions.add(new Position(x - i, y + i)); // up-right
-            validPositions.add(new Position(x - i, y - i)); // up-left
-        }
-
-        return validPositions;
+        // Empty board diagonal rays from the magic tables, only on-board squares.
+        // Blockers are resolved by GameLogic with the real occupancy.
+        return TARGETS[Bitboards.square(this.position)];
     }
 
 }
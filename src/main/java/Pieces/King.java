@@ -1,53 +1,52 @@
 package src.main.java.Pieces;
 
+import src.main.java.Attacks;
+import src.main.java.Bitboards;
 import src.main.java.ChessColor;
 import src.main.java.Piece;
+import src.main.java.PieceType;
 import src.main.java.Position;
-import java.util.ArrayList;
 
-import javax.swing.*;
 import java.util.List;
 
 public class King extends Piece {
+    private static final List<Position>[] TARGETS = targetTable(Attacks::kingAttacks);
+    private static final int WHITE_HOME = 60; // e1
+    private static final int BLACK_HOME = 4;  // e8
+    private static final List<Position> WHITE_CASTLING_TARGETS = castlingTargets(WHITE_HOME);
+    private static final List<Position> BLACK_CASTLING_TARGETS = castlingTargets(BLACK_HOME);
+
     public King(ChessColor color, Position startPos) {
         super( "King", color, startPos);
     }
 
     @Override
     public Piece copy() {
-        King copy = new King(this.color, new Position(this.position.x, this.position.y));
+        King copy = new King(this.color, this.position);
         copy.setHasMoved(this.hasMoved());
         return copy;
     }
 
+    @Override
+    public PieceType getType() {
+        return PieceType.KING;
+    }
+
 
     @Override
     public List<Position> getValidPositions() {
-        List<Position> validPositions = new ArrayList<>();
-        int x = this.position.x;
-        int y = this.position.y;
-
-        // Standard king moves
-        for (int dx = -1; dx <= 1; dx++) {
-            for (int dy = -1; dy <= 1; dy++) {
-                if (dx == 0 && dy == 0) continue;
-                validPositions.add(new Position(x + dx, y + dy));
-            }
-        }
-
-        // Add castling moves (we only suggest them, no validation here)
+        int square = Bitboards.square(this.position);
+        // Castling is only suggested here, GameLogic validates it
         if (!this.hasMoved) {
-            int row = (this.color == ChessColor.WHITE) ? 7 : 0;
-            if (x == row && y == 4) { // default king position
-                // Kingside castling (to g1/g8)
-                validPositions.add(new Position(row, 6));
-
-                // Queenside castling (to c1/c8)
-                validPositions.add(new Position(row, 2));
-            }
+            if (this.color == ChessColor.WHITE && square == WHITE_HOME) return WHITE_CASTLING_TARGETS;
+            if (this.color == ChessColor.BLACK && square == BLACK_HOME) return BLACK_CASTLING_TARGETS;
         }
+        return TARGETS[square];
+    }
 
-        return validPositions;
+    // King steps from the starting square plus the castling destinations on the c and g file
+    private static List<Position> castlingTargets(int home) {
+        return List.copyOf(toPositions(Attacks.kingAttacks(home) | Bitboards.bit(home - 2) | Bitboards.bit(home + 2)));
     }
 
 }
@@ -1,14 +1,16 @@
 package src.main.java.Pieces;
 
+import src.main.java.Attacks;
+import src.main.java.Bitboards;
 import src.main.java.ChessColor;
 import src.main.java.Piece;
+import src.main.java.PieceType;
 import src.main.java.Position;
-import java.util.ArrayList;
 
-import javax.swing.*;
 import java.util.List;
 
 public class Knight extends Piece {
+    private static final List<Position>[] TARGETS = targetTable(Attacks::knightAttacks);
 
     public Knight(ChessColor color, Position startPos) {
         super("Knight", color, startPos);
@@ -16,30 +18,20 @@ public class Knight extends Piece {
 
     @Override
     public Piece copy() {
-        Knight copy = new Knight(this.color, new Position(this.position.x, this.position.y));
+        Knight copy = new Knight(this.color, this.position);
         copy.setHasMoved(this.hasMoved());
         return copy;
     }
 
+    @Override
+    public PieceType getType() {
+        return PieceType.KNIGHT;
+    }
+
 
     @Override
     public List<Position> getValidPositions() {
-        List<Position> validPositions = new ArrayList<>();
-        int x = this.position.x;
-        int y = this.position.y;
-
-        // All 8 possible L-shaped moves
-        int[][] moves = {
-                {+2, +1}, {+2, -1},
-                {-2, +1}, {-2, -1},
-                {+1, +2}, {+1, -2},
-                {-1, +2}, {-1, -2}
-        };
-
-        for (int[] move : moves) {
-            validPositions.add(new Position(x + move[0], y + move[1]));
-        }
-
-        return validPositions;
+        // The L-shaped jumps that stay on the board
+        return TARGETS[Bitboards.square(this.position)];
     }
 }
@@ -1,47 +1,63 @@
 package src.main.java.Pieces;
 
+import src.main.java.Attacks;
+import src.main.java.Bitboards;
 import src.main.java.ChessColor;
 import src.main.java.Piece;
+import src.main.java.PieceType;
 import src.main.java.Position;
 
-import javax.swing.*;
-import java.util.ArrayList;
 import java.util.List;
 
 public class Pawn extends Piece {
+    // [color][0 = has moved, 1 = can still push two squares][square]
+    @SuppressWarnings("unchecked")
+    private static final List<Position>[][][] TARGETS = (List<Position>[][][]) new List<?>[2][2][];
+
+    static {
+        for (ChessColor color : ChessColor.values()) {
+            for (int unmoved = 0; unmoved < 2; unmoved++) {
+                boolean doublePush = unmoved == 1;
+                TARGETS[color.ordinal()][unmoved] = targetTable(square -> targets(color, doublePush, square));
+            }
+        }
+    }
+
     public Pawn(ChessColor color, Position startPos) {
         super( "Pawn", color, startPos);
     }
 
     @Override
     public Piece copy() {
-        Pawn copy = new Pawn(this.color, new Position(this.position.x, this.position.y));
+        Pawn copy = new Pawn(this.color, this.position);
         copy.setHasMoved(this.hasMoved());
         return copy;
     }
 
+    @Override
+    public PieceType getType() {
+        return PieceType.PAWN;
+    }
+
 
     @Override
     public List<Position> getValidPositions() {
-        List<Position> validPositions = new ArrayList<>();
-        int direction = (this.color == ChessColor.WHITE) ? -1 : 1;
-
-        int currentRow = this.position.x;
-        int currentCol = this.position.y;
+        return TARGETS[this.color.ordinal()][this.hasMoved ? 0 : 1][Bitboards.square(this.position)];
+    }
 
-        // Forward one square
-        validPositions.add(new Position(currentRow + direction, currentCol));
+    // Forward one square, two if the pawn has not moved, and the diagonal captures, on the board only
+    private static long targets(ChessColor color, boolean doublePush, int square) {
+        int direction = (color == ChessColor.WHITE) ? -1 : 1;
+        int row = Bitboards.row(square);
+        int col = Bitboards.col(square);
 
-        // Forward two squares if at start position
-        if (!this.hasMoved) {
-            validPositions.add(new Position(currentRow + 2 * direction, currentCol));
+        long targets = Attacks.pawnAttacks(color, square);
+        if (Bitboards.isOnBoard(row + direction, col)) {
+            targets |= Bitboards.bit(Bitboards.square(row + direction, col));
         }
-
-        // Diagonal captures (left and right)
-        validPositions.add(new Position(currentRow + direction, currentCol - 1));
-        validPositions.add(new Position(currentRow + direction, currentCol + 1));
-
-
-        return validPositions;
+        if (doublePush && Bitboards.isOnBoard(row + 2 * direction, col)) {
+            targets |= Bitboards.bit(Bitboards.square(row + 2 * direction, col));
+        }
+        return targets;
     }
 }
@@ -1,17 +1,38 @@
 package src.main.java;
 
-import java.util.Objects;
+/**
+ * A board coordinate (x = row from the top, y = column). Immutable: the 64 on-board squares
+ * are interned, get them with Position.of() instead of allocating new ones.
+ */
+public final class Position {
+    private static final Position[] SQUARES = new Position[64];
 
-public class Position {
-    public int x, y;
+    static {
+        for (int square = 0; square < 64; square++) {
+            SQUARES[square] = new Position(square >>> 3, square & 7);
+        }
+    }
+
+    public final int x, y;
 
-    public Position(int x, int y) {
+    private Position(int x, int y) {
         this.x = x;
         this.y = y;
     }
 
+    /** The interned position of square index 'square' (a8 = 0 ... h1 = 63). */
+    public static Position of(int square) {
+        return SQUARES[square];
+    }
+
+    // Interned for on-board coordinates, off-board ones are still allocated
+    public static Position of(int x, int y) {
+        return (x | y) >>> 3 == 0 ? SQUARES[x * 8 + y] : new Position(x, y);
+    }
+
     @Override
     public boolean equals(Object o) {
+        if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Position position = (Position) o;
         return x == position.x && y == position.y;
@@ -19,7 +40,7 @@ public class Position {
 
     @Override
     public int hashCode() {
-        return Objects.hash(x, y);
+        return 31 * x + y;
     }
 
     @Override
@@ -29,4 +50,4 @@ public class Position {
                 ", y=" + y +
                 '}';
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,93 @@
+package src.main.java;
+
+/**
+ * Static exchange evaluation: the material outcome of a capture sequence on one square,
+ * worked out from the attackers of that square without playing any move.
+ * Both sides always recapture with their least valuable attacker and may stop when going on
+ * would lose material. Sliders hidden behind a capturing piece (x-rays) join in as the
+ * occupancy is cleared; pins are ignored.
+ */
+public final class StaticExchange {
+    /** Minimum length of the scratch array passed to evaluate(), one slot per capture followed. */
+    public static final int MAX_CAPTURES = 32;
+
+    private static final int[] VALUES = {100, 320, 330, 500, 900, 20000}; // by PieceType ordinal
+
+    private StaticExchange() {
+    }
+
+    public static int value(PieceType type) {
+        return VALUES[type.ordinal()];
+    }
+
+    /**
+     * Expected material gain of 'move' for the side playing it, in centipawns (0 for quiet moves that are not attacked).
+     * 'gain' is scratch space of at least MAX_CAPTURES ints owned by the caller, so the search allocates nothing.
+     */
+    public static int evaluate(Board board, int move, int[] gain) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        Piece mover = board.getPieceAt(from);
+        if (mover == null) return 0;
+
+        long occupancy = board.getOccupancy() ^ Bitboards.bit(from);
+        Piece victim = board.getPieceAt(to);
+        if (Move.flags(move) == Move.EN_PASSANT) {
+            int captured = Bitboards.square(Bitboards.row(from), Bitboards.col(to));
+            occupancy ^= Bitboards.bit(captured);
+            gain[0] = VALUES[PieceType.PAWN.ordinal()];
+        } else {
+            gain[0] = victim == null ? 0 : value(victim.getType());
+        }
+
+        // Value of the piece standing on 'to', the next one to be captured
+        int onSquare = value(mover.getType());
+        if (Move.isPromotion(move)) {
+            int promoted = value(Move.promotionType(move));
+            gain[0] += promoted - VALUES[PieceType.PAWN.ordinal()];
+            onSquare = promoted;
+        }
+
+        ChessColor side = mover.getColor().opposite();
+        long attackers = (board.attackersTo(to, ChessColor.WHITE, occupancy)
+                | board.attackersTo(to, ChessColor.BLACK, occupancy)) & occupancy;
+        int depth = 0;
+
+        while (true) {
+            long ours = attackers & board.getOccupancy(side);
+            if (ours == 0) break;
+
+            PieceType type = leastValuable(board, side, ours);
+            long bit = Long.lowestOneBit(ours & board.getBitboard(side, type));
+            // The king can only take last, when the square is no longer defended
+            if (type == PieceType.KING && (attackers & board.getOccupancy(side.opposite())) != 0) break;
+
+            depth++;
+            gain[depth] = onSquare - gain[depth - 1];
+            if (Math.max(-gain[depth - 1], gain[depth]) < 0) {
+                depth--; // this capture cannot change the outcome, it is not played
+                break;
+            }
+
+            occupancy ^= bit;
+            attackers = (board.attackersTo(to, ChessColor.WHITE, occupancy)
+                    | board.attackersTo(to, ChessColor.BLACK, occupancy)) & occupancy;
+            onSquare = value(type);
+            side = side.opposite();
+            if (depth == gain.length - 1) break;
+        }
+
+        // Each side only takes when it pays off, folded back from the last capture
+        for (; depth > 0; depth--) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+        }
+        return gain[0];
+    }
+
+    private static PieceType leastValuable(Board board, ChessColor side, long attackers) {
+        for (PieceType type : PieceType.values()) {
+            if ((attackers & board.getBitboard(side, type)) != 0) return type;
+        }
+        return PieceType.KING; // not reached, 'attackers' is never empty
+    }
+}
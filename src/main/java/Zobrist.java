@@ -0,0 +1,57 @@
+package src.main.java;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing: a position key is the XOR of the keys of its features,
+ * so a move updates it with a few XORs (a piece leaving a square, landing on another, ...).
+ */
+public final class Zobrist {
+    private static final long[][][] PIECES = new long[2][PieceType.values().length][64]; // [color][type][square]
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT = new long[8]; // by file
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        // Fixed seed, keys are the same in every run
+        SplittableRandom random = new SplittableRandom(0x2F6B_15C9_A4D3_7E81L);
+        for (long[][] color : PIECES) {
+            for (long[] type : color) {
+                for (int square = 0; square < 64; square++) {
+                    type[square] = random.nextLong();
+                }
+            }
+        }
+        for (int i = 0; i < CASTLING.length; i++) {
+            CASTLING[i] = random.nextLong();
+        }
+        for (int i = 0; i < EN_PASSANT.length; i++) {
+            EN_PASSANT[i] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    public static long piece(ChessColor color, PieceType type, int square) {
+        return PIECES[color.ordinal()][type.ordinal()][square];
+    }
+
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    public static long enPassant(int square) {
+        return square == Bitboards.NO_SQUARE ? 0 : EN_PASSANT[Bitboards.col(square)];
+    }
+
+    public static long sideToMove(ChessColor turn) {
+        return turn == ChessColor.BLACK ? BLACK_TO_MOVE : 0;
+    }
+
+    // XORed in on every move, the side to move always flips
+    public static long blackToMove() {
+        return BLACK_TO_MOVE;
+    }
+}
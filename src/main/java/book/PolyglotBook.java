@@ -0,0 +1,155 @@
+package src.main.java.book;
+
+import src.main.java.Bitboards;
+import src.main.java.Board;
+import src.main.java.GameLogic;
+import src.main.java.Move;
+import src.main.java.MoveGenerator;
+import src.main.java.Piece;
+import src.main.java.PieceType;
+import src.main.java.Position;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Opening book in the Polyglot .bin format, memory-mapped: nothing is read up front and a
+ * lookup touches only the pages of its binary search.
+ *
+ * The file is a sequence of 16-byte big-endian entries sorted by key:
+ * key (8 bytes), move (2), weight (2), learn (4, unused here).
+ * Move bits: to file 0-2, to rank 3-5, from file 6-8, from rank 9-11, promotion 12-14
+ * (none, knight, bishop, rook, queen). Castling is stored as the king taking its own rook.
+ */
+public class PolyglotBook {
+    public static final Path DEFAULT_BOOK_FILE = Path.of("assets", "book", "book.bin");
+
+    private static final int ENTRY_SIZE = 16;
+    private static final PieceType[] PROMOTIONS = {null, PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN};
+
+    /** A book move with from/to as our Positions, ready for GameLogic.move / findLegalMove. */
+    public record BookMove(Position from, Position to, PieceType promotion, int weight) {
+    }
+
+    private final MappedByteBuffer entries;
+    private final int count;
+    private final Random random = new Random();
+
+    private PolyglotBook(MappedByteBuffer entries) {
+        this.entries = entries;
+        this.count = entries.capacity() / ENTRY_SIZE;
+    }
+
+    /** Maps the book file. */
+    public static PolyglotBook open(Path bookFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(bookFile, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new PolyglotBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /** All book moves for the current position of 'game', as stored (not checked for legality). */
+    public List<BookMove> lookup(GameLogic game) {
+        long key = PolyglotKey.of(game);
+        List<BookMove> moves = new ArrayList<>();
+        for (int i = firstEntry(key); i < count && keyAt(i) == key; i++) {
+            int offset = i * ENTRY_SIZE;
+            int weight = Short.toUnsignedInt(entries.getShort(offset + 10));
+            moves.add(decode(game.getBoard(), Short.toUnsignedInt(entries.getShort(offset + 8)), weight));
+        }
+        return moves;
+    }
+
+    /**
+     * A legal book move for the side to move, picked at random in proportion to the weights,
+     * or Move.NONE if the position is not in the book.
+     */
+    public int pickMove(GameLogic game) {
+        List<BookMove> candidates = new ArrayList<>();
+        List<Integer> legal = new ArrayList<>();
+        int total = 0;
+        for (BookMove bookMove : lookup(game)) {
+            int move = toMove(game, bookMove);
+            // Illegal entries only come from a broken book or a key collision
+            if (move == Move.NONE || bookMove.weight() == 0) continue;
+            candidates.add(bookMove);
+            legal.add(move);
+            total += bookMove.weight();
+        }
+        if (total == 0) return Move.NONE;
+
+        int r;
+        synchronized (random) {
+            r = random.nextInt(total);
+        }
+        for (int i = 0; i < candidates.size(); i++) {
+            r -= candidates.get(i).weight();
+            if (r < 0) return legal.get(i);
+        }
+        return Move.NONE; // not reached
+    }
+
+    /** The legal move of 'game' matching the book move, or Move.NONE. */
+    public static int toMove(GameLogic game, BookMove bookMove) {
+        int move = game.findLegalMove(bookMove.from(), bookMove.to());
+        if (move == Move.NONE || !Move.isPromotion(move) || Move.promotionType(move) == bookMove.promotion()) {
+            return move;
+        }
+        // findLegalMove picks the queen, under-promotions are searched for
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int n = game.generateLegalMoves(moves);
+        for (int i = 0; i < n; i++) {
+            if (Move.from(moves[i]) == Move.from(move) && Move.to(moves[i]) == Move.to(move)
+                    && Move.promotionType(moves[i]) == bookMove.promotion()) {
+                return moves[i];
+            }
+        }
+        return Move.NONE;
+    }
+
+    private static BookMove decode(Board board, int move, int weight) {
+        int to = PolyglotKey.fromPolyglot(move & 0x3F);
+        int from = PolyglotKey.fromPolyglot((move >>> 6) & 0x3F);
+        int promotion = (move >>> 12) & 0x7;
+
+        // King takes own rook -> the king's castling destination
+        Piece king = board.getPieceAt(from);
+        Piece rook = board.getPieceAt(to);
+        if (king != null && rook != null && king.getType() == PieceType.KING && rook.getType() == PieceType.ROOK
+                && king.getColor() == rook.getColor()) {
+            to = Bitboards.col(to) > Bitboards.col(from) ? from + 2 : from - 2;
+        }
+
+        return new BookMove(
+                Position.of(from),
+                Position.of(to),
+                promotion < PROMOTIONS.length ? PROMOTIONS[promotion] : null,
+                weight);
+    }
+
+    // Index of the first entry with a key >= 'key', keys compared unsigned
+    private int firstEntry(long key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(mid), key) < 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private long keyAt(int index) {
+        return entries.getLong(index * ENTRY_SIZE);
+    }
+}
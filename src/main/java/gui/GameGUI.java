@@ -1,4 +1,20 @@
-package src.main.java;
+package src.main.java.gui;
+
+import src.main.java.Bitboards;
+import src.main.java.Board;
+import src.main.java.ChessColor;
+import src.main.java.GameLogic;
+import src.main.java.GameStatus;
+import src.main.java.Move;
+import src.main.java.MoveGenerator;
+import src.main.java.Piece;
+import src.main.java.PieceType;
+import src.main.java.Position;
+import src.main.java.book.PolyglotBook;
+import src.main.java.search.Search;
+import src.main.java.search.TimeManager;
+import src.main.java.search.TranspositionTable;
+import src.main.java.tablebase.Tablebases;
 
 import javax.imageio.ImageIO;
 import javax.swing.*;
@@ -11,12 +27,18 @@ import java.io.File;
 import java.io.InputStream;
 import java.util.*;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class GameGUI extends JPanel {
+    // Iterazioni e mosse del computer, a livello FINE: invisibili con la configurazione predefinita
+    private static final Logger LOG = Logger.getLogger(GameGUI.class.getName());
 
     private static final boolean SKIP_BACKGROUND = false;
 
-    private List<Position> cachedSelectionMoves = Collections.emptyList();
+    // Mosse legali del pezzo selezionato, buffer riusato a ogni selezione
+    private final int[] selectionMoves = new int[MoveGenerator.MAX_MOVES];
+    private int selectionMoveCount = 0;
 
     private static final int TILE_SIZE = 80;
     private static final int BOARD_SIZE = 8;
@@ -81,8 +103,27 @@ public class GameGUI extends JPanel {
     private boolean clocksRunning = false;
     private boolean lossOnTime = true;
 
+    /* ================== COMPUTER PLAYER ================== */
+    private ChessColor computerColor = null;    // null = due giocatori umani
+    private final TranspositionTable searchTable = new TranspositionTable(64);
+    private Search search;
+    private int searchGeneration = 0;           // scarta i risultati di ricerche di partite precedenti
+    private final Object gameLock = new Object(); // i worker copiano la partita mentre l'EDT può muovere
+
+    // Pondering: durante il turno dell'umano il computer cerca la posizione dopo la risposta prevista
+    private Search ponderSearch;
+    private TimeManager ponderTime;
+    private int ponderMove = Move.NONE;
+    private boolean ponderHit = false;
+    private Search.Result ponderResult;         // ricerca finita prima che l'umano muovesse
+
+    private PolyglotBook openingBook;           // null se assets/book/book.bin non c'è
+    private Tablebases tablebases;              // null se assets/tablebases non c'è
+
     public GameGUI() {
         loadAtari();
+        loadOpeningBook();
+        loadTablebases();
         gameLogic = new GameLogic();
         loadFontOnce();
 
@@ -104,6 +145,7 @@ public class GameGUI extends JPanel {
                     return;
                 }
                 if (showAtariScreen || showNameInput) return;
+                if (isComputerTurn()) return;
 
                 final int startX = (getWidth() - BOARD_PIXEL_SIZE) / 2;
                 final int startY = (getHeight() - BOARD_PIXEL_SIZE) / 2;
@@ -134,8 +176,29 @@ public class GameGUI extends JPanel {
         } catch (Exception ignored) {}
     }
 
+    private void loadOpeningBook() {
+        if (!java.nio.file.Files.exists(PolyglotBook.DEFAULT_BOOK_FILE)) return;
+        try {
+            openingBook = PolyglotBook.open(PolyglotBook.DEFAULT_BOOK_FILE);
+        } catch (Exception e) {
+            System.err.println("Libro di aperture non caricato: " + e.getMessage());
+        }
+    }
+
+    // Tabelle dei finali generate con TablebaseGenerator
+    private void loadTablebases() {
+        if (!java.nio.file.Files.isDirectory(Tablebases.DEFAULT_DIRECTORY)) return;
+        try {
+            tablebases = Tablebases.open(Tablebases.DEFAULT_DIRECTORY);
+        } catch (Exception e) {
+            System.err.println("Tablebase non caricate: " + e.getMessage());
+        }
+    }
+
     private void resetGame() {
+        stopComputer();
         gameLogic = new GameLogic();
+        searchTable.clear();
 
         // Ricrea nuove liste mutabili (non usare clear() su possibili liste immutabili)
         whiteCaptured = new ArrayList<>();
@@ -153,16 +216,17 @@ public class GameGUI extends JPanel {
         lastTickNano = System.nanoTime();
         clocksRunning = true;
 
-        cachedSelectionMoves = Collections.emptyList();
+        selectionMoveCount = 0;
 
         repaint();
+        startComputerMove();
     }
 
     /* ================= Selezione ottimizzata ================= */
 
     private void handleSelectionClick(int row, int col) {
         if (selectedRow < 0) {
-            Piece p = gameLogic.getBoard().getPieceAt(new Position(row, col));
+            Piece p = gameLogic.getBoard().getPieceAt(Position.of(row, col));
             if (p != null && p.getColor() == gameLogic.getTurn()) {
                 selectedPiece = p;
                 selectedRow = row;
@@ -178,44 +242,205 @@ public class GameGUI extends JPanel {
                 repaint();
                 return;
             }
-            boolean moved = gameLogic.move(new Position(selectedRow, selectedCol), new Position(row, col));
-
-            if (moved) {
-                // Incremento sul giocatore che ha appena mosso (turn già aggiornato dentro gameLogic)
-                if (INCREMENT_MILLIS > 0) {
-                    ChessColor justMoved = (gameLogic.getTurn() == ChessColor.WHITE) ? ChessColor.BLACK : ChessColor.WHITE;
-                    if (justMoved == ChessColor.WHITE) whiteMillis += INCREMENT_MILLIS;
-                    else blackMillis += INCREMENT_MILLIS;
+            int move = gameLogic.findLegalMove(Position.of(selectedRow, selectedCol), Position.of(row, col));
+            boolean moved = false;
+            if (move != Move.NONE) {
+                synchronized (gameLock) {
+                    moved = gameLogic.move(move);
                 }
             }
 
             clearSelection();
             if (moved) {
-                updateCapturedPieces();
-                checkGameEnd();
-                if (gameOver) clocksRunning = false;
+                afterMove();
             }
             repaint();
+            if (moved) {
+                if (!gameOver && move == ponderMove && ponderSearch != null) {
+                    ponderHit();
+                } else {
+                    stopPondering();
+                    startComputerMove();
+                }
+            }
         }
     }
 
-    private void computeSelectionMoves(int row, int col, Piece piece) {
-        List<Position> geo = piece.getValidPositions();
-        if (geo.isEmpty()) {
-            cachedSelectionMoves = Collections.emptyList();
-            return;
+    private void afterMove() {
+        // Incremento sul giocatore che ha appena mosso (turn già aggiornato dentro gameLogic)
+        if (INCREMENT_MILLIS > 0) {
+            ChessColor justMoved = (gameLogic.getTurn() == ChessColor.WHITE) ? ChessColor.BLACK : ChessColor.WHITE;
+            if (justMoved == ChessColor.WHITE) whiteMillis += INCREMENT_MILLIS;
+            else blackMillis += INCREMENT_MILLIS;
         }
-        ArrayList<Position> legal = new ArrayList<>(geo.size());
-        Position from = new Position(row, col);
-        for (Position candidate : geo) {
-            if (candidate.x < 0 || candidate.x >= BOARD_SIZE ||
-                    candidate.y < 0 || candidate.y >= BOARD_SIZE)
-                continue;
-            if (gameLogic.isMoveValid(from, candidate, true)) {
-                legal.add(candidate);
+        updateCapturedPieces();
+        checkGameEnd();
+        if (gameOver) clocksRunning = false;
+    }
+
+    /* ================= Computer ================= */
+
+    private boolean isComputerTurn() {
+        return computerColor != null && gameLogic.getTurn() == computerColor;
+    }
+
+    // Avvia la ricerca su un worker, l'EDT resta libero per timer e repaint
+    private void startComputerMove() {
+        if (!isComputerTurn() || gameOver || showAtariScreen || showNameInput) return;
+        if (playBookMove()) return;
+
+        TimeManager time = new TimeManager(computerMillis(), INCREMENT_MILLIS, gameLogic.getMoveNumber());
+        Search worker = new Search(searchTable);
+        worker.setTablebases(tablebases);
+        worker.setListener(result -> LOG.fine(() -> "info " + result));
+        search = worker;
+        searchGeneration++;
+        launchSearch(worker, time, Move.NONE);
+    }
+
+    // In apertura il computer gioca dal libro senza cercare
+    private boolean playBookMove() {
+        if (openingBook == null) return false;
+        boolean moved;
+        synchronized (gameLock) {
+            int move = openingBook.pickMove(gameLogic);
+            moved = move != Move.NONE && gameLogic.move(move);
+        }
+        if (!moved) return false;
+        LOG.fine("bestmove book");
+        afterMove();
+        repaint();
+        return true;
+    }
+
+    // Cerca su una copia della partita, dopo la mossa 'ponder' se non è Move.NONE
+    private void launchSearch(Search worker, TimeManager time, int ponder) {
+        GameLogic game = gameLogic;
+        int generation = searchGeneration;
+
+        new SwingWorker<Search.Result, Void>() {
+            @Override
+            protected Search.Result doInBackground() {
+                GameLogic copy;
+                synchronized (gameLock) {
+                    copy = game.copy();
+                }
+                if (ponder != Move.NONE) copy.makeMove(ponder);
+                return worker.search(copy, Search.MAX_PLY, time);
+            }
+
+            @Override
+            protected void done() {
+                if (generation != searchGeneration || game != gameLogic || gameOver) return;
+                Search.Result result;
+                try {
+                    result = get();
+                } catch (Exception e) {
+                    searchFailed(e);
+                    return;
+                }
+                if (ponder != Move.NONE && !ponderHit) {
+                    ponderResult = result; // la si gioca subito se l'umano fa la mossa prevista
+                    return;
+                }
+                playComputerMove(result);
             }
+        }.execute();
+    }
+
+    // La ricerca è fallita: lo si dice all'utente e la partita continua senza il computer
+    private void searchFailed(Exception e) {
+        LOG.log(Level.WARNING, "Ricerca del computer fallita", e);
+        stopComputer();
+        computerColor = null;
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        JOptionPane.showMessageDialog(this,
+                "La ricerca del computer si è interrotta:\n" + cause
+                        + "\nLa partita continua con due giocatori umani.",
+                "Errore del computer", JOptionPane.ERROR_MESSAGE);
+        repaint();
+    }
+
+    private void playComputerMove(Search.Result result) {
+        search = null;
+        ponderSearch = null;
+        ponderMove = Move.NONE;
+        ponderHit = false;
+        ponderResult = null;
+        LOG.fine(() -> "bestmove " + result);
+
+        boolean moved = false;
+        if (result.bestMove() != Move.NONE) {
+            synchronized (gameLock) {
+                moved = gameLogic.move(result.bestMove());
+            }
+        }
+        if (moved) {
+            afterMove();
+            repaint();
+            startPondering();
+        }
+    }
+
+    // La risposta prevista è la mossa migliore salvata nella tabella per la posizione attuale
+    private void startPondering() {
+        if (computerColor == null || isComputerTurn() || gameOver) return;
+        int predicted = TranspositionTable.move(searchTable.probe(gameLogic.getZobristKey()));
+        if (!MoveGenerator.isLegal(gameLogic, predicted)) return;
+
+        ponderTime = new TimeManager(computerMillis(), INCREMENT_MILLIS, gameLogic.getMoveNumber() + 1);
+        Search worker = new Search(searchTable);
+        worker.setTablebases(tablebases);
+        worker.setListener(result -> LOG.fine(() -> "info ponder " + result));
+        worker.setPondering(true);
+        ponderSearch = worker;
+        ponderMove = predicted;
+        ponderHit = false;
+        ponderResult = null;
+        searchGeneration++;
+        launchSearch(worker, ponderTime, predicted);
+    }
+
+    // L'umano ha giocato la mossa prevista: la ricerca in corso continua, ora con il tempo del computer
+    private void ponderHit() {
+        if (ponderResult != null) {
+            playComputerMove(ponderResult);
+            return;
+        }
+        ponderHit = true;
+        ponderTime.start();
+        ponderSearch.ponderHit();
+        search = ponderSearch;
+    }
+
+    // Mossa diversa da quella prevista: la ricerca si ferma al prossimo nodo, il risultato viene scartato
+    private void stopPondering() {
+        if (ponderSearch != null) {
+            searchGeneration++;
+            ponderSearch.stop();
         }
-        cachedSelectionMoves = legal;
+        ponderSearch = null;
+        ponderMove = Move.NONE;
+        ponderHit = false;
+        ponderResult = null;
+    }
+
+    private void stopComputer() {
+        searchGeneration++;
+        if (search != null) {
+            search.stop();
+            search = null;
+        }
+        stopPondering();
+    }
+
+    private long computerMillis() {
+        return (computerColor == ChessColor.WHITE) ? whiteMillis : blackMillis;
+    }
+
+    private void computeSelectionMoves(int row, int col, Piece piece) {
+        // Mosse legali dal generatore (pin e scacco già considerati)
+        selectionMoveCount = gameLogic.generateLegalMoves(Position.of(row, col), selectionMoves);
     }
 
     private void clearSelection() {
@@ -223,7 +448,7 @@ public class GameGUI extends JPanel {
         selectedCol = -1;
         selectedPiece = null;
         highlightColor = null;
-        cachedSelectionMoves = Collections.emptyList();
+        selectionMoveCount = 0;
     }
 
     /* =================== Stato di gioco ===================== */
@@ -238,20 +463,21 @@ public class GameGUI extends JPanel {
     }
 
     private void checkGameEnd() {
-        if (gameLogic.isCheckmate()) {
+        GameStatus status = gameLogic.getStatus();
+        if (status == GameStatus.CHECKMATE) {
             gameOver = true;
             winner = (gameLogic.getTurn() == ChessColor.WHITE) ? ChessColor.BLACK : ChessColor.WHITE;
-        } else if (gameLogic.isDraw()) {
+        } else if (status.isDraw()) {
             gameOver = true;
             isDraw = true;
-            drawReason = gameLogic.getDrawReason();
+            drawReason = status.getDrawReason();
         }
     }
 
     /* ================= Nome giocatori ================= */
 
     private void getPlayerNames() {
-        JPanel panel = new JPanel(new GridLayout(3, 2, 10, 10)) {
+        JPanel panel = new JPanel(new GridLayout(4, 2, 10, 10)) {
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
                 g.setColor(new Color(0, 0, 0, 200));
@@ -288,15 +514,26 @@ public class GameGUI extends JPanel {
         styleTextField(blackField, customFont);
         panel.add(blackField);
 
+        JLabel computerLabel = new JLabel("BLACK IS COMPUTER:");
+        computerLabel.setFont(customFont);
+        computerLabel.setForeground(Color.WHITE);
+        panel.add(computerLabel);
+
+        JCheckBox computerBox = new JCheckBox();
+        computerBox.setOpaque(false);
+        panel.add(computerBox);
+
         JButton okButton = new JButton("START GAME");
         styleButton(okButton, customFont);
         okButton.addActionListener(e -> {
             playerWhiteName = whiteField.getText().trim().isEmpty() ? "White Player" : whiteField.getText();
             playerBlackName = blackField.getText().trim().isEmpty() ? "Black Player" : blackField.getText();
+            computerColor = computerBox.isSelected() ? ChessColor.BLACK : null;
             showNameInput = false;
             Window w = SwingUtilities.getWindowAncestor(panel);
             if (w != null) w.dispose();
             repaint();
+            startComputerMove();
         });
 
         panel.add(new JLabel());
@@ -382,16 +619,19 @@ public class GameGUI extends JPanel {
     }
 
     private void drawMoveHints(Graphics g) {
-        if (cachedSelectionMoves.isEmpty()) return;
+        if (selectionMoveCount == 0) return;
         Graphics2D g2 = (Graphics2D) g;
         int boardStartX = (getWidth() - BOARD_PIXEL_SIZE) / 2;
         int boardStartY = (getHeight() - BOARD_PIXEL_SIZE) / 2;
         // Viola (puoi cambiare qui se preferisci azzurro)
         g2.setColor(new Color(210, 120, 255, 170));
         int r = TILE_SIZE / 3;
-        for (Position p : cachedSelectionMoves) {
-            int x = boardStartX + p.y * TILE_SIZE;
-            int y = boardStartY + p.x * TILE_SIZE;
+        for (int i = 0; i < selectionMoveCount; i++) {
+            int move = selectionMoves[i];
+            // Una promozione è quattro mosse sulla stessa casa, un solo punto
+            if (Move.isPromotion(move) && Move.promotionType(move) != PieceType.QUEEN) continue;
+            int x = boardStartX + Bitboards.col(Move.to(move)) * TILE_SIZE;
+            int y = boardStartY + Bitboards.row(Move.to(move)) * TILE_SIZE;
             g2.fillOval(x + (TILE_SIZE - r) / 2, y + (TILE_SIZE - r) / 2, r, r);
         }
     }
@@ -684,20 +924,22 @@ public class GameGUI extends JPanel {
         final double scaleFactor = 0.85;
         final int pieceW = (int) (TILE_SIZE * scaleFactor);
         final int pieceH = pieceW;
-        for (int r = 0; r < BOARD_SIZE; r++) {
+        Board board = gameLogic.getBoard();
+        // Solo le case occupate (bitboard)
+        for (long bb = board.getOccupancy(); bb != 0; bb &= bb - 1) {
+            int square = Bitboards.first(bb);
+            int r = Bitboards.row(square);
+            int c = Bitboards.col(square);
+            Piece p = board.getPieceAt(square);
             int y = startY + r * TILE_SIZE + (TILE_SIZE - pieceH) / 2;
-            for (int c = 0; c < BOARD_SIZE; c++) {
-                Piece p = gameLogic.getBoard().getPieceAt(new Position(r, c));
-                if (p == null) continue;
-                BufferedImage tex = p.getTexture();
-                Image scaled = getScaledPieceImage(tex, pieceW, pieceH);
-                if (scaled == null) {
-                    g.setColor(p.getColor() == ChessColor.WHITE ? Color.WHITE : Color.BLACK);
-                    g.fillOval(startX + c * TILE_SIZE + 10, y + 10, pieceW - 20, pieceH - 20);
-                } else {
-                    int x = startX + c * TILE_SIZE + (TILE_SIZE - pieceW) / 2;
-                    g.drawImage(scaled, x, y, null);
-                }
+            BufferedImage tex = PieceTextures.get(p.getColor(), p.getType());
+            Image scaled = getScaledPieceImage(tex, pieceW, pieceH);
+            if (scaled == null) {
+                g.setColor(p.getColor() == ChessColor.WHITE ? Color.WHITE : Color.BLACK);
+                g.fillOval(startX + c * TILE_SIZE + 10, y + 10, pieceW - 20, pieceH - 20);
+            } else {
+                int x = startX + c * TILE_SIZE + (TILE_SIZE - pieceW) / 2;
+                g.drawImage(scaled, x, y, null);
             }
         }
     }
@@ -744,7 +986,8 @@ public class GameGUI extends JPanel {
         int whitePiecesStartY = whiteLabelY + 10;
 
         for (int i = 0; i < whiteCaptured.size(); i++) {
-            BufferedImage img = whiteCaptured.get(i).getTexture();
+            Piece piece = whiteCaptured.get(i);
+            BufferedImage img = PieceTextures.get(piece.getColor(), piece.getType());
             if (img != null) {
                 Image scaled = getScaledPieceImage(img, iconSize, iconSize);
                 int x = textLeft + (i % 5) * (iconSize + padding);
@@ -776,7 +1019,8 @@ public class GameGUI extends JPanel {
         int blackPiecesStartY = blackLabelY + 10;
 
         for (int i = 0; i < blackCaptured.size(); i++) {
-            BufferedImage img = blackCaptured.get(i).getTexture();
+            Piece piece = blackCaptured.get(i);
+            BufferedImage img = PieceTextures.get(piece.getColor(), piece.getType());
             if (img != null) {
                 Image scaled = getScaledPieceImage(img, iconSize, iconSize);
                 int x = textLeft + (i % 5) * (iconSize + padding);
@@ -897,6 +1141,7 @@ public class GameGUI extends JPanel {
             gameOver = true;
             winner = (whiteMillis == 0) ? ChessColor.BLACK : ChessColor.WHITE;
             clocksRunning = false;
+            stopComputer();
         }
 
         repaint();
@@ -0,0 +1,55 @@
+package src.main.java.gui;
+
+import src.main.java.ChessColor;
+import src.main.java.PieceType;
+
+import javax.imageio.ImageIO;
+import java.awt.GraphicsEnvironment;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Piece images, shared by the whole process: each one is read from assets/ the first time it
+ * is drawn and never again, so pieces and board copies carry no image data.
+ * In headless mode (no display, or set explicitly by engine-only tools) nothing is loaded and
+ * get() returns null.
+ */
+public final class PieceTextures {
+    private static final BufferedImage[][] TEXTURES = new BufferedImage[2][PieceType.values().length];
+    private static final boolean[][] LOADED = new boolean[2][PieceType.values().length];
+    private static volatile boolean headless = GraphicsEnvironment.isHeadless();
+
+    private PieceTextures() {
+    }
+
+    public static void setHeadless(boolean headless) {
+        PieceTextures.headless = headless;
+    }
+
+    public static boolean isHeadless() {
+        return headless;
+    }
+
+    /** Image of the piece, null in headless mode or if the file cannot be read. */
+    public static synchronized BufferedImage get(ChessColor color, PieceType type) {
+        if (headless) return null;
+        int c = color.ordinal();
+        int t = type.ordinal();
+        if (!LOADED[c][t]) {
+            LOADED[c][t] = true; // a missing file is reported once
+            TEXTURES[c][t] = load(color, type);
+        }
+        return TEXTURES[c][t];
+    }
+
+    private static BufferedImage load(ChessColor color, PieceType type) {
+        String path = String.format("assets/%s_%s.png", color.name().toLowerCase(), type.name().toLowerCase());
+        try {
+            return ImageIO.read(new File(path));
+        } catch (IOException e) {
+            System.err.println("Error loading texture " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
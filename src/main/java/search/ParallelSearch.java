@@ -0,0 +1,207 @@
+package src.main.java.search;
+
+import src.main.java.GameLogic;
+import src.main.java.Perft;
+import src.main.java.tablebase.Tablebases;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Lazy SMP: every thread runs its own iterative deepening search on the same root position,
+ * they only cooperate through the shared lock-free TranspositionTable. Helpers skip some depths
+ * so they fill the table ahead of the main thread, whose result is the one returned.
+ *
+ * Each thread plays on its own GameLogic.copy(), so no board or piece is ever shared.
+ *
+ * Usage (speedup benchmark):
+ *   ParallelSearch [-t maxThreads] [depth] [fen]
+ */
+public class ParallelSearch {
+    private static final String[] BENCH_FENS = {
+            Perft.START_FEN,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8"
+    };
+
+    private static final int BENCH_RUNS = 3; // timed passes per thread count, the fastest is reported
+
+    private final TranspositionTable table;
+    private final Search[] searches;
+    private final ExecutorService pool;
+
+    public ParallelSearch(TranspositionTable table, int threads) {
+        this.table = table;
+        this.searches = new Search[Math.max(1, threads)];
+        for (int i = 0; i < searches.length; i++) {
+            searches[i] = new Search(table);
+            searches[i].setHelperIndex(i);
+        }
+        // Helpers only, the main search runs on the calling thread
+        this.pool = searches.length > 1 ? Executors.newFixedThreadPool(searches.length - 1, r -> {
+            Thread t = new Thread(r, "search-helper");
+            t.setDaemon(true);
+            return t;
+        }) : null;
+    }
+
+    public int getThreadCount() {
+        return searches.length;
+    }
+
+    // Iteration results of the main thread
+    public void setListener(Consumer<Search.Result> listener) {
+        searches[0].setListener(listener);
+    }
+
+    public void setTablebases(Tablebases tablebases) {
+        for (Search search : searches) {
+            search.setTablebases(tablebases);
+        }
+    }
+
+    // Like Search.stop(), the request stays until clearStop()
+    public void stop() {
+        for (Search search : searches) {
+            search.stop();
+        }
+    }
+
+    public void clearStop() {
+        for (Search search : searches) {
+            search.clearStop();
+        }
+    }
+
+    public void shutdown() {
+        stop();
+        if (pool != null) pool.shutdownNow();
+    }
+
+    /**
+     * Searches 'game' (left unchanged) with all threads. The node budget is per thread; the
+     * returned node count and NPS cover all of them.
+     */
+    public Search.Result search(GameLogic game, int maxDepth, long nodeBudget, long timeMillis) throws Exception {
+        return search(game, maxDepth, nodeBudget, timeMillis, null);
+    }
+
+    // The main thread follows 'time', helpers only get its hard limit and stop with the main thread
+    public Search.Result search(GameLogic game, int maxDepth, TimeManager time) throws Exception {
+        return search(game, maxDepth, 0, time.getHardLimit(), time);
+    }
+
+    private Search.Result search(GameLogic game, int maxDepth, long nodeBudget, long timeMillis,
+                                 TimeManager time) throws Exception {
+        GameLogic[] copies = new GameLogic[searches.length];
+        for (int i = 1; i < searches.length; i++) {
+            copies[i] = game.copy();
+        }
+        long start = System.nanoTime();
+        table.newSearch();
+
+        List<Future<Search.Result>> helpers = new ArrayList<>(searches.length - 1);
+        for (int i = 1; i < searches.length; i++) {
+            Search helper = searches[i];
+            helper.clearStop(); // stopped by the previous search, cleared before the pool can run it
+            GameLogic copy = copies[i];
+            helpers.add(pool.submit(() -> helper.iterate(copy, maxDepth, nodeBudget, timeMillis, null)));
+        }
+
+        Search.Result main;
+        try {
+            main = searches[0].iterate(game, maxDepth, nodeBudget, timeMillis, time);
+        } finally {
+            // The main thread decides, helpers are stopped as soon as it is done
+            for (int i = 1; i < searches.length; i++) {
+                searches[i].stop();
+            }
+        }
+
+        long nodes = main.nodes();
+        for (Future<Search.Result> helper : helpers) {
+            nodes += helper.get().nodes();
+        }
+        return new Search.Result(main.bestMove(), main.score(), main.depth(), nodes, System.nanoTime() - start);
+    }
+
+    /* ================== Speedup benchmark ================== */
+
+    // Time to reach 'depth' on the bench positions for 1, 2, 4, ... threads, relative to one thread.
+    // One untimed pass warms up the JIT first, then each thread count keeps its best of BENCH_RUNS.
+    private static void runBenchmark(List<String> fens, int depth, int maxThreads, int hashMegabytes,
+                                     Tablebases tablebases) throws Exception {
+        TranspositionTable table = new TranspositionTable(hashMegabytes);
+        List<GameLogic> positions = new ArrayList<>();
+        for (String fen : fens) {
+            positions.add(GameLogic.fromFen(fen));
+        }
+        System.out.printf("Processors: %d  Depth: %d  Positions: %d%n",
+                Runtime.getRuntime().availableProcessors(), depth, positions.size());
+
+        benchmarkRun(table, positions, depth, 1, tablebases);
+        double baseSeconds = 0;
+        for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+            long[] best = null;
+            for (int run = 0; run < BENCH_RUNS; run++) {
+                long[] result = benchmarkRun(table, positions, depth, threads, tablebases);
+                if (best == null || result[1] < best[1]) best = result;
+            }
+            long nodes = best[0];
+            double seconds = best[1] / 1e9;
+            if (threads == 1) baseSeconds = seconds;
+            System.out.printf("Threads: %2d  Time: %.3f s  Nodes: %d  NPS: %.0f  Speedup: %.2fx%n",
+                    threads, seconds, nodes, nodes / Math.max(seconds, 1e-9), baseSeconds / Math.max(seconds, 1e-9));
+        }
+    }
+
+    // Nodes and nanoseconds for one pass over the positions, each searched from an empty table
+    private static long[] benchmarkRun(TranspositionTable table, List<GameLogic> positions, int depth, int threads,
+                                       Tablebases tablebases) throws Exception {
+        ParallelSearch search = new ParallelSearch(table, threads);
+        search.setTablebases(tablebases);
+        long nodes = 0;
+        long nanos = 0;
+        try {
+            for (GameLogic position : positions) {
+                table.clear();
+                Search.Result result = search.search(position, depth, 0, 0);
+                nodes += result.nodes();
+                nanos += result.nanos();
+            }
+        } finally {
+            search.shutdown();
+        }
+        return new long[]{nodes, nanos};
+    }
+
+    private static int nextThreadCount(int threads, int maxThreads) {
+        if (threads == maxThreads) return maxThreads + 1;
+        return Math.min(threads * 2, maxThreads);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        List<String> rest = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-t") && i + 1 < args.length) {
+                maxThreads = Integer.parseInt(args[++i]);
+            } else {
+                rest.add(args[i]);
+            }
+        }
+
+        int depth = rest.isEmpty() ? 7 : Integer.parseInt(rest.get(0));
+        List<String> fens = rest.size() > 1 ? List.of(String.join(" ", rest.subList(1, rest.size()))) : List.of(BENCH_FENS);
+        // Endgame tables from TablebaseGenerator, if they were generated
+        Tablebases tablebases = Files.isDirectory(Tablebases.DEFAULT_DIRECTORY)
+                ? Tablebases.open(Tablebases.DEFAULT_DIRECTORY) : null;
+        runBenchmark(fens, depth, Math.max(1, maxThreads), 128, tablebases);
+    }
+}
@@ -0,0 +1,369 @@
+package src.main.java.search;
+
+import src.main.java.Board;
+import src.main.java.Evaluation;
+import src.main.java.GameLogic;
+import src.main.java.Move;
+import src.main.java.MovePicker;
+import src.main.java.PawnHashTable;
+import src.main.java.Piece;
+import src.main.java.PieceType;
+import src.main.java.StaticExchange;
+import src.main.java.tablebase.Tablebases;
+
+import java.util.function.Consumer;
+
+/**
+ * Iterative deepening alpha-beta (negamax) search over the GameLogic make/unmake API.
+ * A search owns its position: callers pass a copy when the real game lives on another thread.
+ */
+public class Search {
+    public static final int INFINITY = 32000;
+    public static final int MATE = 30000;
+    public static final int MAX_PLY = 128;
+
+    // Mate scores beyond this are "mate in n", they get adjusted by ply in the hash table
+    private static final int MATE_BOUND = MATE - MAX_PLY;
+    private static final int DELTA_MARGIN = 200;
+    private static final int HISTORY_MAX = 1 << 20;
+
+    public record Result(int bestMove, int score, int depth, long nodes, long nanos) {
+        public long nodesPerSecond() {
+            return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("depth %d score %d nodes %d nps %d time %d ms move %s",
+                    depth, score, nodes, nodesPerSecond(), nanos / 1_000_000,
+                    bestMove == Move.NONE ? "(none)" : Move.toString(bestMove));
+        }
+    }
+
+    // Lazy SMP helpers skip some depths so they do not all search the same iteration
+    private static final int[] SKIP_SIZE = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+    private static final int[] SKIP_PHASE = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+
+    private final TranspositionTable table;
+    private final PawnHashTable pawnTable = new PawnHashTable(1 << 14);
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY + 1];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[][] history = new int[2][64 * 64]; // [color][from * 64 + to]
+    private final int[] exchangeGains = new int[StaticExchange.MAX_CAPTURES];
+
+    private volatile boolean stopRequested; // latched, see clearStop()
+    private boolean budgetExhausted; // node or time limit hit, per search
+    private volatile boolean pondering; // no limits until ponderHit()
+    private long deadline;
+    private TimeManager time;
+    private long maxNodes;
+    private long nodes;
+    private int rootBestMove;
+    private Consumer<Result> listener;
+    private int helperIndex; // 0 = main thread
+    private Tablebases tablebases; // may be null
+
+    public Search(TranspositionTable table) {
+        this.table = table;
+        for (int i = 0; i < pickers.length; i++) {
+            pickers[i] = new MovePicker();
+        }
+    }
+
+    // Makes this search a helper thread of a parallel search, see ParallelSearch
+    void setHelperIndex(int helperIndex) {
+        this.helperIndex = helperIndex;
+    }
+
+    // Called with the result of every completed iteration
+    public void setListener(Consumer<Result> listener) {
+        this.listener = listener;
+    }
+
+    // Positions covered by the tables get their exact score instead of being searched
+    public void setTablebases(Tablebases tablebases) {
+        this.tablebases = tablebases;
+    }
+
+    /**
+     * Next search ponders: it runs without time or node limits on the position after the
+     * predicted reply, until stop() (the opponent played something else) or ponderHit().
+     */
+    public void setPondering(boolean pondering) {
+        this.pondering = pondering;
+    }
+
+    // The predicted reply was played: from now on the search runs on its TimeManager,
+    // whose clock the caller restarts first
+    public void ponderHit() {
+        pondering = false;
+    }
+
+    // Can be called from any thread, the search returns its best move so far. The request
+    // stays until clearStop(), so a stop() that arrives before the search starts is not lost
+    public void stop() {
+        stopRequested = true;
+    }
+
+    // Lets a stopped search be reused. Call it on the thread that hands the search to its
+    // worker, before the worker starts, never from the worker itself
+    public void clearStop() {
+        stopRequested = false;
+    }
+
+    /**
+     * Searches 'game' (which is left unchanged) until 'maxDepth' is reached or the node or
+     * time budget runs out. A budget of 0 means no limit.
+     */
+    public Result search(GameLogic game, int maxDepth, long nodeBudget, long timeMillis) {
+        table.newSearch();
+        return iterate(game, maxDepth, nodeBudget, timeMillis, null);
+    }
+
+    // Searches with the think time handed out by 'time' (hard limit as deadline, soft limit between iterations)
+    public Result search(GameLogic game, int maxDepth, TimeManager time) {
+        table.newSearch();
+        return iterate(game, maxDepth, 0, time.getHardLimit(), time);
+    }
+
+    // Iterative deepening without aging the table, parallel threads share one table generation
+    Result iterate(GameLogic game, int maxDepth, long nodeBudget, long timeMillis, TimeManager time) {
+        long start = System.nanoTime();
+        budgetExhausted = false;
+        nodes = 0;
+        maxNodes = nodeBudget > 0 ? nodeBudget : Long.MAX_VALUE;
+        deadline = timeMillis > 0 ? start + timeMillis * 1_000_000L : Long.MAX_VALUE;
+        this.time = time; // its deadline is read while searching, a ponder hit restarts its clock
+        for (int[] slots : killers) {
+            java.util.Arrays.fill(slots, Move.NONE);
+        }
+        for (int[] table : history) {
+            for (int i = 0; i < table.length; i++) {
+                table[i] /= 8; // keep a little of what the previous search learned
+            }
+        }
+
+        Result best = new Result(Move.NONE, 0, 0, 0, 0);
+        for (int depth = 1; depth <= Math.min(maxDepth, MAX_PLY - 1); depth++) {
+            if (helperIndex > 0 && depth < maxDepth) {
+                int i = (helperIndex - 1) % SKIP_SIZE.length;
+                if (((depth + SKIP_PHASE[i]) / SKIP_SIZE[i]) % 2 != 0) continue;
+            }
+            rootBestMove = Move.NONE;
+            int score = negamax(game, depth, -INFINITY, INFINITY, 0);
+            if (stopped() && best.depth() > 0) {
+                break; // unfinished iteration, keep the previous one
+            }
+            int move = rootBestMove;
+            best = new Result(move, score, depth, nodes, System.nanoTime() - start);
+            if (listener != null) listener.accept(best);
+            if (stopped() || move == Move.NONE || Math.abs(score) >= MATE_BOUND) {
+                break;
+            }
+            if (time != null && !pondering && time.shouldStop(best)) {
+                break;
+            }
+        }
+        return new Result(best.bestMove(), best.score(), best.depth(), nodes, System.nanoTime() - start);
+    }
+
+    // Nodes are counted as they are played, in both the main search and quiescence
+    private boolean outOfBudget() {
+        if ((nodes & 1023) == 0 && !pondering) {
+            long limit = time != null ? time.getDeadlineNanos() : deadline;
+            if (nodes >= maxNodes || System.nanoTime() >= limit) {
+                budgetExhausted = true;
+            }
+        }
+        return stopped();
+    }
+
+    private boolean stopped() {
+        return budgetExhausted || stopRequested;
+    }
+
+    private int negamax(GameLogic game, int depth, int alpha, int beta, int ply) {
+        if (outOfBudget() && ply > 0) return 0;
+
+        if (ply > 0 && (game.getHalfmoveClock() >= 100 || game.countRepetitions() > 0)) {
+            return 0;
+        }
+        if (ply > 0 && tablebases != null) {
+            Tablebases.Probe probe = tablebases.probe(game);
+            if (probe != null) return tablebaseScore(probe, ply);
+        }
+
+        boolean inCheck = game.getCheckers() != 0;
+        if (inCheck) depth++; // check extension
+        if (depth <= 0) {
+            return quiescence(game, alpha, beta, ply);
+        }
+
+        long key = game.getZobristKey();
+        long entry = table.probe(key);
+        int hashMove = Move.NONE;
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+                        || (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        if (ply >= MAX_PLY) {
+            return Evaluation.evaluate(game, pawnTable);
+        }
+
+        MovePicker picker = pickers[ply];
+        picker.init(game, hashMove, killers[ply][0], killers[ply][1], history);
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = Move.NONE;
+        for (int move = picker.next(); move != Move.NONE; move = picker.next()) {
+            game.makeMove(move);
+            nodes++;
+            int score = -negamax(game, depth - 1, -beta, -alpha, ply + 1);
+            game.unmakeMove();
+            if (stopped()) return bestMove == Move.NONE ? 0 : bestScore;
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (ply == 0) rootBestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (score >= beta) {
+                        if (!Move.isCapture(move) && !Move.isPromotion(move)) {
+                            updateKillersAndHistory(game, move, depth, ply);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (bestMove == Move.NONE) {
+            // No legal move: mate or stalemate, the same at any depth
+            int score = inCheck ? -MATE + ply : 0;
+            table.store(key, Move.NONE, toTable(score, ply), MAX_PLY, TranspositionTable.BOUND_EXACT);
+            return score;
+        }
+
+        int bound = bestScore >= beta ? TranspositionTable.BOUND_LOWER
+                : bestScore > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+        table.store(key, bestMove, toTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    /**
+     * Captures-only search at the horizon, so the evaluation is never taken in the middle of
+     * an exchange. The side to move may stand pat on the static evaluation; captures that lose
+     * material by SEE, or cannot raise the score to alpha, are skipped. In check all the
+     * evasions are searched instead.
+     */
+    private int quiescence(GameLogic game, int alpha, int beta, int ply) {
+        if (outOfBudget()) return 0;
+        if (tablebases != null) {
+            Tablebases.Probe probe = tablebases.probe(game);
+            if (probe != null) return tablebaseScore(probe, ply);
+        }
+
+        boolean inCheck = game.getCheckers() != 0;
+        int standPat = -INFINITY;
+        if (!inCheck) {
+            standPat = Evaluation.evaluate(game, pawnTable);
+            if (standPat >= beta || ply >= MAX_PLY) return standPat;
+            if (standPat > alpha) alpha = standPat;
+        }
+
+        if (ply >= MAX_PLY) return 0;
+
+        MovePicker picker = pickers[ply];
+        if (inCheck) {
+            picker.init(game, Move.NONE, Move.NONE, Move.NONE, history);
+        } else {
+            picker.initCaptures(game);
+        }
+
+        Board board = game.getBoard();
+        int bestScore = standPat;
+        boolean anyMove = false;
+        for (int move = picker.next(); move != Move.NONE; move = picker.next()) {
+            anyMove = true;
+            if (!inCheck) {
+                // Delta pruning: even winning the captured piece would not reach alpha
+                Piece victim = board.getPieceAt(Move.to(move));
+                int victimValue = victim == null ? StaticExchange.value(PieceType.PAWN) : StaticExchange.value(victim.getType());
+                if (!Move.isPromotion(move) && standPat + victimValue + DELTA_MARGIN <= alpha) continue;
+                if (StaticExchange.evaluate(board, move, exchangeGains) < 0) continue;
+            }
+            game.makeMove(move);
+            nodes++;
+            int score = -quiescence(game, -beta, -alpha, ply + 1);
+            game.unmakeMove();
+            if (stopped()) return 0;
+
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (score >= beta) break;
+                }
+            }
+        }
+        if (inCheck && !anyMove) {
+            return -MATE + ply;
+        }
+        return bestScore;
+    }
+
+    // A quiet move caused a cutoff: try it early in sibling positions and raise its history score
+    private void updateKillersAndHistory(GameLogic game, int move, int depth, int ply) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[] table = history[game.getTurn().ordinal()];
+        int index = Move.from(move) * 64 + Move.to(move);
+        table[index] += depth * depth;
+        if (table[index] > HISTORY_MAX) {
+            for (int i = 0; i < table.length; i++) {
+                table[i] /= 2;
+            }
+        }
+    }
+
+    // Distance to mate from the table plus the plies already played from the root
+    private static int tablebaseScore(Tablebases.Probe probe, int ply) {
+        if (probe.isWin()) return MATE - ply - probe.dtm();
+        if (probe.isLoss()) return -MATE + ply + probe.dtm();
+        return 0;
+    }
+
+    // Mate scores are stored relative to the node, not to the root
+    private static int toTable(int score, int ply) {
+        if (score >= MATE_BOUND) return score + ply;
+        if (score <= -MATE_BOUND) return score - ply;
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE_BOUND) return score - ply;
+        if (score <= -MATE_BOUND) return score + ply;
+        return score;
+    }
+
+    public PawnHashTable getPawnTable() {
+        return pawnTable;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+}
@@ -0,0 +1,95 @@
+package src.main.java.search;
+
+/**
+ * Turns the clock (remaining time, increment, move number) into think time for one move.
+ *
+ * The soft limit is the time we aim to use: it is checked between iterations, shrunk while the
+ * best move stays the same and stretched when the score drops. The hard limit is never
+ * exceeded, the search is stopped in the middle of an iteration if needed.
+ * One instance per move, used by the searching thread (and restarted on a ponder hit).
+ */
+public class TimeManager {
+    private static final long MOVE_OVERHEAD = 30; // ms lost between the search and the clock
+    private static final long MIN_THINK = 10;
+    private static final int SCORE_DROP = 30;      // centipawns that count as "the position got worse"
+
+    private final long softLimit;
+    private final long hardLimit;
+    private volatile long startNanos; // restarted by another thread on a ponder hit
+    private volatile boolean restarted; // the searching thread then forgets its iteration history
+
+    // Only touched by the searching thread
+    private int lastBestMove;
+    private int lastScore;
+    private int stableIterations;
+
+    public TimeManager(long remainingMillis, long incrementMillis, int moveNumber) {
+        long available = Math.max(0, remainingMillis - MOVE_OVERHEAD);
+        long soft = available / movesToGo(moveNumber) + incrementMillis * 3 / 4;
+        long hard = Math.min(available / 4 + incrementMillis, soft * 5);
+        this.hardLimit = Math.max(MIN_THINK, Math.min(hard, available));
+        this.softLimit = Math.max(MIN_THINK, Math.min(soft, hardLimit));
+        this.startNanos = System.nanoTime();
+    }
+
+    // Expected number of moves left to play with the remaining time, from the ply count
+    private static int movesToGo(int moveNumber) {
+        int fullMove = moveNumber / 2 + 1;
+        return Math.max(20, 50 - fullMove);
+    }
+
+    // Restarts the clock, the constructor already starts it. Safe from any thread: the
+    // iteration history is reset by the searching thread at its next shouldStop()
+    public void start() {
+        startNanos = System.nanoTime();
+        restarted = true;
+    }
+
+    public long getSoftLimit() {
+        return softLimit;
+    }
+
+    public long getHardLimit() {
+        return hardLimit;
+    }
+
+    // System.nanoTime() at which the hard limit is reached
+    public long getDeadlineNanos() {
+        return startNanos + hardLimit * 1_000_000L;
+    }
+
+    public long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000L;
+    }
+
+    /** Called after every completed iteration: true if the search should not start another one. */
+    public boolean shouldStop(Search.Result result) {
+        if (restarted) {
+            restarted = false;
+            lastBestMove = 0;
+            lastScore = 0;
+            stableIterations = 0;
+        }
+        boolean sameMove = result.depth() > 1 && result.bestMove() == lastBestMove;
+        stableIterations = sameMove ? stableIterations + 1 : 0;
+        int drop = result.depth() > 1 ? lastScore - result.score() : 0;
+        lastBestMove = result.bestMove();
+        lastScore = result.score();
+
+        double scale = 1.0;
+        if (stableIterations >= 4) scale = 0.5;
+        else if (stableIterations >= 2) scale = 0.75;
+        if (drop >= 2 * SCORE_DROP) scale *= 2.0;
+        else if (drop >= SCORE_DROP) scale *= 1.5;
+
+        long limit = Math.min(hardLimit, (long) (softLimit * scale));
+        // The next iteration costs about as much as all the previous ones together,
+        // starting it late would most likely be wasted
+        return elapsedMillis() >= limit * 6 / 10;
+    }
+
+    @Override
+    public String toString() {
+        return "TimeManager{soft=" + softLimit + " ms, hard=" + hardLimit + " ms}";
+    }
+}
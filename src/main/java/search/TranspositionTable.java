@@ -0,0 +1,174 @@
+package src.main.java.search;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size hash table of search results, shared by any number of threads without locks.
+ *
+ * Every entry is two longs: (key ^ data) and data. A reader accepts an entry only if the two
+ * halves XOR back to its key, so an entry torn by a concurrent writer simply reads as a miss.
+ * Entries are grouped in buckets of four (64 bytes); a store replaces the same position,
+ * otherwise the entry that is shallowest once older searches are penalised.
+ *
+ * data layout: move (16 bits) | score (16, signed) | depth (8) | bound (2) | age (6)
+ */
+public class TranspositionTable {
+    public static final int BOUND_NONE = 0;
+    public static final int BOUND_UPPER = 1; // fail low, score is at most this
+    public static final int BOUND_LOWER = 2; // fail high, score is at least this
+    public static final int BOUND_EXACT = 3;
+
+    private static final int BUCKET_ENTRIES = 4;
+    private static final int LONGS_PER_ENTRY = 2;
+
+    private final long[] table;
+    private final long bucketMask;
+    private volatile int age;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+
+    public TranspositionTable(int megabytes) {
+        long bytes = Math.max(1, megabytes) * 1024L * 1024L;
+        long buckets = Long.highestOneBit(bytes / (BUCKET_ENTRIES * LONGS_PER_ENTRY * Long.BYTES));
+        // A single long[] can hold at most 2^31 - 1 elements
+        buckets = Math.min(buckets, 1L << 27);
+        this.table = new long[(int) (buckets * BUCKET_ENTRIES * LONGS_PER_ENTRY)];
+        this.bucketMask = buckets - 1;
+    }
+
+    /** Packed data stored for 'key', or 0 if the position is not in the table. */
+    public long probe(long key) {
+        int base = bucketIndex(key);
+        for (int i = 0; i < BUCKET_ENTRIES; i++) {
+            int slot = base + i * LONGS_PER_ENTRY;
+            long data = table[slot + 1];
+            if ((table[slot] ^ data) == key && bound(data) != BOUND_NONE) {
+                hits.increment();
+                return data;
+            }
+        }
+        misses.increment();
+        return 0;
+    }
+
+    public void store(long key, int move, int score, int depth, int bound) {
+        int base = bucketIndex(key);
+        int currentAge = age;
+        int replace = base;
+        int worstValue = Integer.MAX_VALUE;
+
+        for (int i = 0; i < BUCKET_ENTRIES; i++) {
+            int slot = base + i * LONGS_PER_ENTRY;
+            long data = table[slot + 1];
+            if (bound(data) == BOUND_NONE) {
+                replace = slot; // empty
+                worstValue = Integer.MIN_VALUE;
+                break;
+            }
+            if ((table[slot] ^ data) == key) {
+                // Same position: keep the old best move if the new result has none
+                if (move == 0) move = move(data);
+                replace = slot;
+                worstValue = Integer.MIN_VALUE;
+                break;
+            }
+            // Depth-preferred, entries from older searches count as much shallower
+            int value = depth(data) - 8 * ((currentAge - age(data)) & 0x3F);
+            if (value < worstValue) {
+                worstValue = value;
+                replace = slot;
+            }
+        }
+        if (worstValue != Integer.MIN_VALUE) {
+            collisions.increment(); // another position gets evicted
+        }
+
+        long data = pack(move, score, depth, bound, currentAge);
+        table[replace] = key ^ data;
+        table[replace + 1] = data;
+    }
+
+    // Called once per search, older entries become cheap to replace
+    public void newSearch() {
+        age = (age + 1) & 0x3F;
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(table, 0L);
+        hits.reset();
+        misses.reset();
+        collisions.reset();
+    }
+
+    // Permille of the first thousand entries used by the current search
+    public int hashfull() {
+        int used = 0;
+        int sample = Math.min(1000, table.length / LONGS_PER_ENTRY);
+        for (int i = 0; i < sample; i++) {
+            long data = table[i * LONGS_PER_ENTRY + 1];
+            if (bound(data) != BOUND_NONE && age(data) == age) used++;
+        }
+        return used * 1000 / Math.max(1, sample);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getCollisions() {
+        return collisions.sum();
+    }
+
+    public long getEntryCount() {
+        return table.length / LONGS_PER_ENTRY;
+    }
+
+    @Override
+    public String toString() {
+        long h = getHits();
+        long total = h + getMisses();
+        return String.format("TT{entries=%d, hits=%d, misses=%d, collisions=%d, hitRate=%.1f%%}",
+                getEntryCount(), h, getMisses(), getCollisions(), total == 0 ? 0.0 : 100.0 * h / total);
+    }
+
+    private int bucketIndex(long key) {
+        // Low bits pick the bucket, the full key is still verified on probe
+        return (int) (key & bucketMask) * BUCKET_ENTRIES * LONGS_PER_ENTRY;
+    }
+
+    /* ================== Entry layout ================== */
+
+    private static long pack(int move, int score, int depth, int bound, int age) {
+        return (move & 0xFFFFL)
+                | ((score & 0xFFFFL) << 16)
+                | ((long) (depth & 0xFF) << 32)
+                | ((long) (bound & 0x3) << 40)
+                | ((long) (age & 0x3F) << 42);
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> 16);
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> 32) & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> 40) & 0x3);
+    }
+
+    private static int age(long data) {
+        return (int) ((data >>> 42) & 0x3F);
+    }
+}
@@ -0,0 +1,93 @@
+package src.main.java.tablebase;
+
+import src.main.java.PieceType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One endgame table (two kings and one more piece), memory-mapped.
+ *
+ * Positions are normalised so that the side owning the extra piece is white (boards with a
+ * black piece are mirrored top to bottom), then indexed as
+ * ((sideToMove * 64 + whiteKing) * 64 + blackKing) * 64 + piece, sideToMove 0 = white.
+ *
+ * File layout: a 16-byte header (magic, version, PieceType ordinal, entry count), the
+ * win/draw/loss table with 2 bits per position, then the distance to mate in plies, 1 byte per
+ * position (0 for draws).
+ */
+public final class Tablebase {
+    public static final int MAGIC = 0x4A435442; // "JCTB"
+    public static final int VERSION = 1;
+    public static final int ENTRIES = 2 * 64 * 64 * 64;
+    public static final int HEADER_SIZE = 16;
+
+    // 2-bit codes of the win/draw/loss table, for the side to move
+    public static final int DRAW = 0;
+    public static final int WIN = 1;
+    public static final int LOSS = 2;
+    public static final int ILLEGAL = 3;
+
+    private final PieceType piece;
+    private final ByteBuffer data;
+
+    private Tablebase(PieceType piece, ByteBuffer data) {
+        this.piece = piece;
+        this.data = data;
+    }
+
+    public static Tablebase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+                throw new IOException(file + ": not a tablebase file");
+            }
+            int ordinal = data.getInt(8);
+            if (ordinal < 0 || ordinal >= PieceType.values().length || data.getInt(12) != ENTRIES
+                    || data.capacity() != fileSize()) {
+                throw new IOException(file + ": corrupt header");
+            }
+            return new Tablebase(PieceType.values()[ordinal], data);
+        }
+    }
+
+    public static int fileSize() {
+        return HEADER_SIZE + ENTRIES / 4 + ENTRIES;
+    }
+
+    public PieceType getPiece() {
+        return piece;
+    }
+
+    public static int index(int sideToMove, int whiteKing, int blackKing, int piece) {
+        return ((sideToMove * 64 + whiteKing) * 64 + blackKing) * 64 + piece;
+    }
+
+    public int wdl(int index) {
+        return (data.get(HEADER_SIZE + (index >>> 2)) >>> ((index & 3) * 2)) & 3;
+    }
+
+    public int dtm(int index) {
+        return Byte.toUnsignedInt(data.get(HEADER_SIZE + ENTRIES / 4 + index));
+    }
+
+    /** File name of the table for two kings and 'piece', e.g. KQK.tb. */
+    public static String fileName(PieceType piece) {
+        return "K" + letter(piece) + "K.tb";
+    }
+
+    static char letter(PieceType piece) {
+        return switch (piece) {
+            case PAWN -> 'P';
+            case KNIGHT -> 'N';
+            case BISHOP -> 'B';
+            case ROOK -> 'R';
+            case QUEEN -> 'Q';
+            case KING -> 'K';
+        };
+    }
+}
@@ -0,0 +1,301 @@
+package src.main.java.tablebase;
+
+import src.main.java.Attacks;
+import src.main.java.Bitboards;
+import src.main.java.ChessColor;
+import src.main.java.PieceType;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Offline retrograde analysis of the endgames with two kings and one more piece (KQK, KRK,
+ * KPK), written in the format read by Tablebase.
+ *
+ * The successors of every legal position are generated once; moves that leave the table
+ * (the lone king taking the piece, a pawn promoting) are "exits" with a value already known.
+ * Then the results are propagated backwards from the mates, one ply at a time: a position
+ * with a move to a lost position is won, a position whose moves all lead to won positions is
+ * lost. Wins get the shortest distance to mate, losses the longest. What is never reached is
+ * a draw.
+ *
+ * Usage: java src.main.java.tablebase.TablebaseGenerator [directory]   (default assets/tablebases)
+ */
+public final class TablebaseGenerator {
+    public static final Path DEFAULT_DIRECTORY = Path.of("assets", "tablebases");
+
+    private static final int UNKNOWN = -1;
+    private static final int NO_WIN = Integer.MAX_VALUE;
+
+    private final PieceType piece;
+    private final Map<PieceType, Result> promotions;
+
+    // Successors (CSR: moves of position i in successors[first[i] .. first[i + 1]) ) and predecessors
+    private final int[] first = new int[Tablebase.ENTRIES + 1];
+    private int[] successors = new int[Tablebase.ENTRIES * 8];
+    private int[] predecessorFirst;
+    private int[] predecessors;
+
+    private final byte[] wdl = new byte[Tablebase.ENTRIES];
+    private final int[] distance = new int[Tablebase.ENTRIES];
+    private final int[] remaining = new int[Tablebase.ENTRIES];
+    // Best values reachable through exits, for the side to move
+    private final int[] exitWin = new int[Tablebase.ENTRIES];
+    private final int[] exitLoss = new int[Tablebase.ENTRIES];
+    private final boolean[] exitDraw = new boolean[Tablebase.ENTRIES];
+
+    /** A generated table: win/draw/loss code and distance to mate by index. */
+    record Result(PieceType piece, byte[] wdl, byte[] dtm) {
+    }
+
+    private TablebaseGenerator(PieceType piece, Map<PieceType, Result> promotions) {
+        this.piece = piece;
+        this.promotions = promotions;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directory = args.length > 0 ? Path.of(args[0]) : DEFAULT_DIRECTORY;
+        Files.createDirectories(directory);
+
+        // Pawn tables need the tables of the pieces the pawn promotes to
+        Map<PieceType, Result> done = new EnumMap<>(PieceType.class);
+        for (PieceType piece : new PieceType[]{PieceType.QUEEN, PieceType.ROOK, PieceType.PAWN}) {
+            long start = System.nanoTime();
+            Result result = generate(piece, done);
+            done.put(piece, result);
+            Path file = directory.resolve(Tablebase.fileName(piece));
+            write(result, file);
+            System.out.printf("%s: %d ms, %s%n", file, (System.nanoTime() - start) / 1_000_000, summary(result));
+        }
+    }
+
+    static Result generate(PieceType piece, Map<PieceType, Result> promotions) {
+        return new TablebaseGenerator(piece, promotions).run();
+    }
+
+    private Result run() {
+        Arrays.fill(distance, UNKNOWN);
+        Arrays.fill(exitWin, NO_WIN);
+        Arrays.fill(exitLoss, UNKNOWN);
+        Arrays.fill(wdl, (byte) Tablebase.ILLEGAL);
+        generateMoves();
+        invert();
+
+        // Positions to resolve, bucketed by distance to mate
+        IntQueue[] buckets = new IntQueue[256];
+        for (int i = 0; i < buckets.length; i++) buckets[i] = new IntQueue();
+
+        for (int index = 0; index < Tablebase.ENTRIES; index++) {
+            if (wdl[index] == Tablebase.ILLEGAL) continue;
+            wdl[index] = Tablebase.DRAW;
+            if (exitWin[index] != NO_WIN) buckets[exitWin[index]].add(encode(index, Tablebase.WIN));
+            if (remaining[index] == 0 && exitWin[index] == NO_WIN && !exitDraw[index]) {
+                if (exitLoss[index] != UNKNOWN) {
+                    buckets[exitLoss[index]].add(encode(index, Tablebase.LOSS));
+                } else if (inCheck(index)) {
+                    buckets[0].add(encode(index, Tablebase.LOSS)); // checkmate
+                } // else stalemate, stays a draw
+            }
+        }
+
+        for (int ply = 0; ply < buckets.length; ply++) {
+            IntQueue bucket = buckets[ply];
+            for (int k = 0; k < bucket.size; k++) {
+                int index = bucket.items[k] >>> 2;
+                int value = bucket.items[k] & 3;
+                if (distance[index] != UNKNOWN) continue;
+                distance[index] = ply;
+                wdl[index] = (byte) value;
+
+                for (int j = predecessorFirst[index]; j < predecessorFirst[index + 1]; j++) {
+                    int previous = predecessors[j];
+                    if (distance[previous] != UNKNOWN) continue;
+                    if (value == Tablebase.LOSS) {
+                        buckets[ply + 1].add(encode(previous, Tablebase.WIN));
+                    } else if (--remaining[previous] == 0 && exitWin[previous] == NO_WIN && !exitDraw[previous]) {
+                        buckets[Math.max(ply + 1, exitLoss[previous])].add(encode(previous, Tablebase.LOSS));
+                    }
+                }
+            }
+        }
+
+        byte[] dtm = new byte[Tablebase.ENTRIES];
+        for (int index = 0; index < Tablebase.ENTRIES; index++) {
+            if (distance[index] != UNKNOWN) dtm[index] = (byte) distance[index];
+        }
+        return new Result(piece, wdl.clone(), dtm);
+    }
+
+    private static int encode(int index, int value) {
+        return index << 2 | value;
+    }
+
+    /* ================= Moves ================= */
+
+    private void generateMoves() {
+        int count = 0;
+        for (int index = 0; index < Tablebase.ENTRIES; index++) {
+            first[index] = count;
+            int side = index >>> 18;
+            int whiteKing = (index >>> 12) & 63;
+            int blackKing = (index >>> 6) & 63;
+            int square = index & 63;
+            if (!isLegal(side, whiteKing, blackKing, square)) continue;
+            wdl[index] = Tablebase.DRAW;
+
+            if (successors.length < count + 64) successors = Arrays.copyOf(successors, successors.length * 2);
+            count = side == 0
+                    ? strongMoves(index, whiteKing, blackKing, square, count)
+                    : weakMoves(index, whiteKing, blackKing, square, count);
+            remaining[index] = count - first[index];
+        }
+        first[Tablebase.ENTRIES] = count;
+    }
+
+    private int strongMoves(int index, int whiteKing, int blackKing, int square, int count) {
+        long occupancy = Bitboards.bit(whiteKing) | Bitboards.bit(blackKing) | Bitboards.bit(square);
+
+        long kingMoves = Attacks.kingAttacks(whiteKing) & ~Bitboards.bit(square) & ~Attacks.kingAttacks(blackKing);
+        for (; kingMoves != 0; kingMoves &= kingMoves - 1) {
+            successors[count++] = Tablebase.index(1, Bitboards.first(kingMoves), blackKing, square);
+        }
+
+        if (piece == PieceType.PAWN) {
+            int push = square - 8;
+            if ((occupancy & Bitboards.bit(push)) != 0) return count;
+            if (Bitboards.row(push) == 0) {
+                promote(index, whiteKing, blackKing, push);
+                return count;
+            }
+            successors[count++] = Tablebase.index(1, whiteKing, blackKing, push);
+            int doublePush = square - 16;
+            if (Bitboards.row(square) == 6 && (occupancy & Bitboards.bit(doublePush)) == 0) {
+                successors[count++] = Tablebase.index(1, whiteKing, blackKing, doublePush);
+            }
+            return count;
+        }
+
+        long moves = attacks(piece, square, occupancy) & ~occupancy;
+        for (; moves != 0; moves &= moves - 1) {
+            successors[count++] = Tablebase.index(1, whiteKing, blackKing, Bitboards.first(moves));
+        }
+        return count;
+    }
+
+    private int weakMoves(int index, int whiteKing, int blackKing, int square, int count) {
+        long others = Bitboards.bit(whiteKing) | Bitboards.bit(square);
+        long moves = Attacks.kingAttacks(blackKing) & ~Attacks.kingAttacks(whiteKing) & ~Bitboards.bit(whiteKing);
+        for (; moves != 0; moves &= moves - 1) {
+            int to = Bitboards.first(moves);
+            if (to == square) {
+                exitDraw[index] = true; // the piece is not defended by the king, only kings left
+            } else if ((attacks(piece, square, others | Bitboards.bit(to)) & Bitboards.bit(to)) == 0) {
+                successors[count++] = Tablebase.index(0, whiteKing, to, square);
+            }
+        }
+        return count;
+    }
+
+    // Promotions leave the table: the value comes from the queen and rook tables, minor pieces draw
+    private void promote(int index, int whiteKing, int blackKing, int square) {
+        for (PieceType type : new PieceType[]{PieceType.QUEEN, PieceType.ROOK}) {
+            Result table = promotions.get(type);
+            if (table == null) throw new IllegalStateException("K" + Tablebase.letter(type) + "K is needed for promotions");
+            int next = Tablebase.index(1, whiteKing, blackKing, square);
+            switch (table.wdl()[next]) {
+                case Tablebase.LOSS -> exitWin[index] = Math.min(exitWin[index], Byte.toUnsignedInt(table.dtm()[next]) + 1);
+                case Tablebase.WIN -> exitLoss[index] = Math.max(exitLoss[index], Byte.toUnsignedInt(table.dtm()[next]) + 1);
+                default -> exitDraw[index] = true;
+            }
+        }
+        exitDraw[index] = true; // knight or bishop
+    }
+
+    private void invert() {
+        int total = first[Tablebase.ENTRIES];
+        predecessorFirst = new int[Tablebase.ENTRIES + 1];
+        for (int i = 0; i < total; i++) predecessorFirst[successors[i] + 1]++;
+        for (int i = 0; i < Tablebase.ENTRIES; i++) predecessorFirst[i + 1] += predecessorFirst[i];
+        predecessors = new int[total];
+        int[] fill = Arrays.copyOf(predecessorFirst, Tablebase.ENTRIES);
+        for (int index = 0; index < Tablebase.ENTRIES; index++) {
+            for (int j = first[index]; j < first[index + 1]; j++) {
+                predecessors[fill[successors[j]]++] = index;
+            }
+        }
+        successors = null;
+    }
+
+    private boolean isLegal(int side, int whiteKing, int blackKing, int square) {
+        if (whiteKing == blackKing || whiteKing == square || blackKing == square) return false;
+        if ((Attacks.kingAttacks(whiteKing) & Bitboards.bit(blackKing)) != 0) return false;
+        if (piece == PieceType.PAWN && (Bitboards.row(square) == 0 || Bitboards.row(square) == 7)) return false;
+        // The side that just moved cannot be in check
+        return side == 1 || !attacksKing(whiteKing, blackKing, square);
+    }
+
+    private boolean inCheck(int index) {
+        return (index >>> 18) == 1 && attacksKing((index >>> 12) & 63, (index >>> 6) & 63, index & 63);
+    }
+
+    private boolean attacksKing(int whiteKing, int blackKing, int square) {
+        long occupancy = Bitboards.bit(whiteKing) | Bitboards.bit(blackKing) | Bitboards.bit(square);
+        return (attacks(piece, square, occupancy) & Bitboards.bit(blackKing)) != 0;
+    }
+
+    private static long attacks(PieceType piece, int square, long occupancy) {
+        return switch (piece) {
+            case PAWN -> Attacks.pawnAttacks(ChessColor.WHITE, square);
+            case KNIGHT -> Attacks.knightAttacks(square);
+            case KING -> Attacks.kingAttacks(square);
+            default -> Attacks.sliderAttacks(piece, square, occupancy);
+        };
+    }
+
+    /* ================= Output ================= */
+
+    static void write(Result result, Path file) throws IOException {
+        byte[] packed = new byte[Tablebase.ENTRIES / 4];
+        for (int index = 0; index < Tablebase.ENTRIES; index++) {
+            packed[index >>> 2] |= (byte) (result.wdl()[index] << ((index & 3) * 2));
+        }
+        try (OutputStream stream = Files.newOutputStream(file);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.writeInt(Tablebase.MAGIC);
+            out.writeInt(Tablebase.VERSION);
+            out.writeInt(result.piece().ordinal());
+            out.writeInt(Tablebase.ENTRIES);
+            out.write(packed);
+            out.write(result.dtm());
+        }
+    }
+
+    private static String summary(Result result) {
+        int[] counts = new int[4];
+        int longest = 0;
+        for (int index = 0; index < Tablebase.ENTRIES; index++) {
+            counts[result.wdl()[index]]++;
+            if (result.wdl()[index] == Tablebase.WIN) longest = Math.max(longest, result.dtm()[index]);
+        }
+        return "wins " + counts[Tablebase.WIN] + ", draws " + counts[Tablebase.DRAW] + ", losses "
+                + counts[Tablebase.LOSS] + ", illegal " + counts[Tablebase.ILLEGAL] + ", longest mate " + longest + " plies";
+    }
+
+    // Growable int list, the buckets are appended to while being read
+    private static final class IntQueue {
+        int[] items = new int[64];
+        int size;
+
+        void add(int value) {
+            if (size == items.length) items = Arrays.copyOf(items, size * 2);
+            items[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package src.main.java.tablebase;
+
+import src.main.java.Bitboards;
+import src.main.java.Board;
+import src.main.java.ChessColor;
+import src.main.java.GameLogic;
+import src.main.java.PieceType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The endgame tables found in a directory, probed in constant time: a few bitboard lookups to
+ * build the index and one read from the mapped file.
+ * Tables are generated offline by TablebaseGenerator.
+ */
+public final class Tablebases {
+    public static final Path DEFAULT_DIRECTORY = TablebaseGenerator.DEFAULT_DIRECTORY;
+
+    private final Tablebase[] tables = new Tablebase[PieceType.values().length]; // by extra piece
+
+    /** Result of a probe, for the side to move: Tablebase.WIN / DRAW / LOSS and plies to mate. */
+    public record Probe(int wdl, int dtm) {
+        public boolean isWin() {
+            return wdl == Tablebase.WIN;
+        }
+
+        public boolean isLoss() {
+            return wdl == Tablebase.LOSS;
+        }
+
+        public boolean isDraw() {
+            return wdl == Tablebase.DRAW;
+        }
+    }
+
+    /** Maps every table file present in 'directory', missing ones are skipped. */
+    public static Tablebases open(Path directory) throws IOException {
+        Tablebases tablebases = new Tablebases();
+        for (PieceType piece : PieceType.values()) {
+            Path file = directory.resolve(Tablebase.fileName(piece));
+            if (Files.exists(file)) {
+                Tablebase table = Tablebase.open(file);
+                tablebases.tables[table.getPiece().ordinal()] = table;
+            }
+        }
+        return tablebases;
+    }
+
+    public int size() {
+        int count = 0;
+        for (Tablebase table : tables) {
+            if (table != null) count++;
+        }
+        return count;
+    }
+
+    /** The table result for the position, or null if it is not covered. */
+    public Probe probe(GameLogic game) {
+        Board board = game.getBoard();
+        long occupancy = board.getOccupancy();
+        if (Long.bitCount(occupancy) != 3 || game.getCastlingRights() != 0) return null;
+
+        long others = occupancy & ~board.getBitboard(ChessColor.WHITE, PieceType.KING)
+                & ~board.getBitboard(ChessColor.BLACK, PieceType.KING);
+        int square = Bitboards.first(others);
+        ChessColor strong = board.getPieceAt(square).getColor();
+        Tablebase table = tables[board.getPieceAt(square).getType().ordinal()];
+        if (table == null) return null;
+
+        int strongKing = Bitboards.first(board.getBitboard(strong, PieceType.KING));
+        int weakKing = Bitboards.first(board.getBitboard(strong.opposite(), PieceType.KING));
+        int side = game.getTurn() == strong ? 0 : 1;
+        int index = strong == ChessColor.WHITE
+                ? Tablebase.index(side, strongKing, weakKing, square)
+                : Tablebase.index(side, strongKing ^ 56, weakKing ^ 56, square ^ 56); // mirrored, the pawn moves up
+
+        int wdl = table.wdl(index);
+        return wdl == Tablebase.ILLEGAL ? null : new Probe(wdl, table.dtm(index));
+    }
+}